@@ -0,0 +1,36 @@
+package com.giveawaychess;
+
+import java.util.List;
+import java.util.Map;
+
+// Fixed benchmark corpus, grouped by game phase. The positions come from seeded random play and each
+// offers a real choice of moves, so the search benchmarks do not collapse into a single forced reply.
+final class BenchPositions {
+    static final Map<String, List<String>> PHASES = Map.of(
+        "opening", List.of(
+            Perft.START_FEN,
+            "rnbqkbnr/1pp2ppp/4p3/p2p4/8/P1PP1P2/1P2P1PP/RNBQKBNR w - - 0 1",
+            "r1b1kbnr/pppqp1pp/n2p1p2/8/3NP3/8/PPPP1PPP/RNBQK2R w - - 0 1"),
+        "middlegame", List.of(
+            "1nq1kb2/3pppp1/1pp2n2/8/4PP2/2PP4/RP2K1P1/1NB4R w - - 0 1",
+            "r1b1k2r/pp3pbp/n7/2p1P3/P6N/1P6/R3PPPP/1N2KB1R w - - 0 1",
+            "Bnq1k1nr/p1ppp3/7p/5p2/2P2P2/2N4P/P2PPK2/3Q2NR w - - 0 1"),
+        "endgame", List.of(
+            "6r1/2p3b1/8/7p/4p3/6KP/8/5B1R b - - 0 1",
+            "7r/pp5p/n7/8/8/8/R4PPP/8 b - - 0 1",
+            "8/8/bp6/3p3p/1P3P2/4K1P1/8/1N6 w - - 0 1"));
+
+    private BenchPositions() {
+    }
+
+    // One headless board per position of 'phase', each with the side to move from its FEN
+    static ChessBoard[] boards(String phase) {
+        List<String> fens = PHASES.get(phase);
+        ChessBoard[] boards = new ChessBoard[fens.size()];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new ChessBoard();
+            boards[i].setPosition(Position.fromFen(fens.get(i)));
+        }
+        return boards;
+    }
+}
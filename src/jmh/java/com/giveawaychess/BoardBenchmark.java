@@ -0,0 +1,101 @@
+package com.giveawaychess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Per-position costs of move generation, the capture check and evaluation. Each invocation covers
+// every position of the selected phase, for the side to move.
+//
+// deepCopyBoard is gone: searches now copy a Position once and make/unmake moves on it. copyPosition
+// measures that copy, and boardArray the 8x8 Piece[][] view the UI still reads.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    private ChessBoard[] boards;
+    private BotLogic[] bots;
+    private Piece[][][] arrays;
+    private final Position scratch = new Position();
+
+    @Setup
+    public void setUp() {
+        boards = BenchPositions.boards(phase);
+        bots = new BotLogic[boards.length];
+        arrays = new Piece[boards.length][][];
+        for (int i = 0; i < boards.length; i++) {
+            bots[i] = new BotLogic(boards[i], null, BotLogic.BotType.SWEATY);
+            arrays[i] = boards[i].getBoard();
+        }
+    }
+
+    // The legacy per-piece generator on the array view
+    @Benchmark
+    public void generatePotentialMoves(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            Piece.Color side = boards[i].getCurrentPlayer();
+            Piece[][] array = arrays[i];
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    Piece piece = array[row][col];
+                    if (piece != null && piece.getColor() == side) {
+                        bh.consume(piece.generatePotentialMoves(row, col, array));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void getAllValidMoves(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            bh.consume(bots[i].getAllValidMoves(boards[i].getCurrentPlayer()));
+        }
+    }
+
+    @Benchmark
+    public void hasMandatoryCapture(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            bh.consume(boards[i].hasMandatoryCapture(boards[i].getCurrentPlayer(), arrays[i]));
+        }
+    }
+
+    @Benchmark
+    public void evaluateBoard(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            bh.consume(bots[i].evaluateBoard(boards[i].getPosition(), boards[i].getCurrentPlayer()));
+        }
+    }
+
+    @Benchmark
+    public void copyPosition(Blackhole bh) {
+        for (ChessBoard board : boards) {
+            scratch.copyFrom(board.getPosition());
+            bh.consume(scratch);
+        }
+    }
+
+    @Benchmark
+    public void boardArray(Blackhole bh) {
+        for (ChessBoard board : boards) {
+            bh.consume(board.getBoard());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.giveawaychess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Full BotLogic.getBestMove searches, one per position of the selected phase. The transposition table
+// is cleared before each invocation so every search starts cold, as the first move of a game would.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    @Param({"1", "2", "3", "4"})
+    public int depth;
+
+    private ChessBoard[] boards;
+    private BotLogic bot;
+
+    @Setup
+    public void setUp() {
+        boards = BenchPositions.boards(phase);
+        bot = new BotLogic(boards[0], null, BotLogic.BotType.SWEATY);
+        bot.setHashSize(1); // small enough that clearing it does not swamp the shallow searches
+    }
+
+    @Setup(Level.Invocation)
+    public void clearHash() {
+        bot.clearHash();
+    }
+
+    @Benchmark
+    public void getBestMove(Blackhole bh) {
+        for (ChessBoard board : boards) {
+            bh.consume(bot.getBestMove(board, board.getCurrentPlayer(), depth));
+        }
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Random;
 import java.io.File;
 import java.io.IOException;
 
-public class AntichessUI {
+public class AntichessUI implements GameListener {
     private JButton[][] boardButtons; // 8x8 array of buttons representing the board
     private int[] selectedSquare = null; // To store the selected square (piece to move)
     private JTable moveHistoryTable; // Table for move history
@@ -201,6 +201,10 @@ public class AntichessUI {
         gameManager.setPlayers(whitePlayer, blackPlayer);
         whitePlayer.setGameManager(gameManager);
         blackPlayer.setGameManager(gameManager);
+        // Bots promote at random; people get asked
+        for (Player player : new Player[] {whitePlayer, blackPlayer}) {
+            board.setPromotionPolicy(player.getColor(), player.isBot() ? PromotionPolicy.RANDOM : this::promotePawn);
+        }
         board.startGame();
     
         // Let bot move first if playing black
@@ -634,7 +638,7 @@ private HashMap<String, ImageIcon> pieceImages = new HashMap<>();
             gameManager.getCurrentPlayer().isBot() &&
             (turnNumber == skipOffset || (turnNumber > skipOffset && (turnNumber - skipOffset) % 5 == 0)) &&
             gameManager.getCurrentPlayer().isBot()) {
-                gameManager.switchTurn();
+                board.passTurn();
                 gameManager.incrementTurnNumber();  // 🔁 still need to increment
                 skipJustHappened = true;
                 isWhiteTurn = !isWhiteTurn;
@@ -697,14 +701,29 @@ private HashMap<String, ImageIcon> pieceImages = new HashMap<>();
         board.startGame();
     } 
 
-    public void gameWon(Player winner, boolean isSimulation) {
-        if (isSimulation) return;  // Don't trigger UI animations if the game ended in a bot simulation
+    @Override
+    public void boardChanged(Piece[][] board) {
+        SwingUtilities.invokeLater(() -> updateBoard(board));
+    }
+
+    @Override
+    public void gameWon(Piece.Color winner) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> gameWon(winner));
+            return;
+        }
     
-        String winnerText = winner.getColor() == Piece.Color.WHITE ? "Black Wins!" : "White Wins!";
+        String winnerText = winner == Piece.Color.WHITE ? "White Wins!" : "Black Wins!";
 
         if (botVsBotTimer != null) {
             botVsBotTimer.stop();
         }
+        if (whitePlayer != null) {
+            whitePlayer.close();
+        }
+        if (blackPlayer != null) {
+            blackPlayer.close();
+        }
         
         JLabel winnerLabel = new JLabel(winnerText, SwingConstants.CENTER);
         winnerLabel.setFont(new Font("Arial", Font.BOLD, 40));
@@ -728,6 +747,36 @@ private HashMap<String, ImageIcon> pieceImages = new HashMap<>();
         restartTimer.start();
     }    
 
+    private Piece.PieceType promotePawn(Piece.Color color) {
+        // Display promotion options to the user
+        String[] options = {"Queen", "Rook", "Bishop", "Knight", "King"};
+        String choice = (String) JOptionPane.showInputDialog(
+            null,
+            "Choose piece for promotion:",
+            "Pawn Promotion",
+            JOptionPane.PLAIN_MESSAGE,
+            null,
+            options,
+            options[0]
+        );
+
+        if (choice == null) {
+            return Piece.PieceType.QUEEN; // Default to Queen if no choice is made
+        }
+        switch (choice) {
+            case "Rook":
+                return Piece.PieceType.ROOK;
+            case "Bishop":
+                return Piece.PieceType.BISHOP;
+            case "Knight":
+                return Piece.PieceType.KNIGHT;
+            case "King":
+                return Piece.PieceType.KING;
+            default:
+                return Piece.PieceType.QUEEN;
+        }
+    }
+
     private void startConfettiAnimation(JFrame frame) {
         JPanel confettiPanel = new JPanel() {
             List<Color> colors = List.of(Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW, Color.ORANGE, Color.PINK);
@@ -0,0 +1,95 @@
+package com.giveawaychess;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Whole-side attack sets on a Position, for evaluation: which squares a side attacks, who attacks one
+// square, and capture counts by popcount. Each query walks the side's pieces once, with all pawns
+// shifted as one bitboard, and generates no moves. Nothing is cached, so the evaluators can call these
+// from any search thread.
+public final class AttackMap {
+    private AttackMap() {
+    }
+
+    // Every square 'color' attacks
+    public static long attackedBy(Position pos, Color color) {
+        long occupied = pos.occupied();
+        long attacked = pawnWest(pos, color) | pawnEast(pos, color);
+        for (long bb = pos.pieces(color, PieceType.KNIGHT); bb != 0; bb &= bb - 1) {
+            attacked |= Attacks.KNIGHT[Long.numberOfTrailingZeros(bb)];
+        }
+        for (long bb = pos.pieces(color, PieceType.BISHOP) | pos.pieces(color, PieceType.QUEEN); bb != 0; bb &= bb - 1) {
+            attacked |= Attacks.bishop(Long.numberOfTrailingZeros(bb), occupied);
+        }
+        for (long bb = pos.pieces(color, PieceType.ROOK) | pos.pieces(color, PieceType.QUEEN); bb != 0; bb &= bb - 1) {
+            attacked |= Attacks.rook(Long.numberOfTrailingZeros(bb), occupied);
+        }
+        for (long bb = pos.pieces(color, PieceType.KING); bb != 0; bb &= bb - 1) {
+            attacked |= Attacks.KING[Long.numberOfTrailingZeros(bb)];
+        }
+        return attacked;
+    }
+
+    // Pieces of 'color' attacking 'square'; Long.bitCount gives how many
+    public static long attackers(Position pos, Color color, int square) {
+        long occupied = pos.occupied();
+        long queens = pos.pieces(color, PieceType.QUEEN);
+        // A pawn attacks the square if it stands where an enemy pawn on the square would attack
+        return (Attacks.PAWN[color.opposite().ordinal()][square] & pos.pieces(color, PieceType.PAWN))
+            | (Attacks.KNIGHT[square] & pos.pieces(color, PieceType.KNIGHT))
+            | (Attacks.bishop(square, occupied) & (pos.pieces(color, PieceType.BISHOP) | queens))
+            | (Attacks.rook(square, occupied) & (pos.pieces(color, PieceType.ROOK) | queens))
+            | (Attacks.KING[square] & pos.pieces(color, PieceType.KING));
+    }
+
+    // Pieces of 'color' the opponent could capture on its next move. Under the forced capture rule an
+    // attacked piece is always capturable, so this matches scanning the opponent's legal moves.
+    public static long hanging(Position pos, Color color) {
+        return attackedBy(pos, color.opposite()) & pos.occupancy(color);
+    }
+
+    // Captures 'color' has, counted once per piece and target: the sum of Long.bitCount over
+    // MoveGenerator.captureTargets of its pieces, en passant included
+    public static int captureCount(Position pos, Color color) {
+        long enemy = pos.occupancy(color.opposite());
+        long occupied = pos.occupied();
+        long pawnTargets = enemy | MoveGenerator.enPassantTarget(pos, color);
+        int count = Long.bitCount(pawnWest(pos, color) & pawnTargets) + Long.bitCount(pawnEast(pos, color) & pawnTargets);
+        for (long bb = pos.pieces(color, PieceType.KNIGHT); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.KNIGHT[Long.numberOfTrailingZeros(bb)] & enemy);
+        }
+        for (long bb = pos.pieces(color, PieceType.BISHOP); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.bishop(Long.numberOfTrailingZeros(bb), occupied) & enemy);
+        }
+        for (long bb = pos.pieces(color, PieceType.ROOK); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.rook(Long.numberOfTrailingZeros(bb), occupied) & enemy);
+        }
+        count += queenCaptureCount(pos, color);
+        for (long bb = pos.pieces(color, PieceType.KING); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.KING[Long.numberOfTrailingZeros(bb)] & enemy);
+        }
+        return count;
+    }
+
+    // The part of captureCount that the queens of 'color' make up
+    public static int queenCaptureCount(Position pos, Color color) {
+        long enemy = pos.occupancy(color.opposite());
+        long occupied = pos.occupied();
+        int count = 0;
+        for (long bb = pos.pieces(color, PieceType.QUEEN); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.queen(Long.numberOfTrailingZeros(bb), occupied) & enemy);
+        }
+        return count;
+    }
+
+    // Squares the pawns of 'color' attack towards the a-file, and towards the h-file
+    private static long pawnWest(Position pos, Color color) {
+        long pawns = pos.pieces(color, PieceType.PAWN) & ~Bitboards.FILE_A;
+        return color == Color.WHITE ? pawns << 7 : pawns >>> 9;
+    }
+
+    private static long pawnEast(Position pos, Color color) {
+        long pawns = pos.pieces(color, PieceType.PAWN) & ~Bitboards.FILE_H;
+        return color == Color.WHITE ? pawns << 9 : pawns >>> 7;
+    }
+}
@@ -0,0 +1,170 @@
+package com.giveawaychess;
+
+// Precomputed attack sets. Knight, king and pawn attacks are plain per-square tables;
+// rook and bishop attacks use magic bitboards, found once at class load with a fixed seed
+// so every run builds identical tables.
+public final class Attacks {
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    // Indexed by color ordinal: white pawns attack towards higher rows, black towards lower
+    static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    // Per-row PRNG seeds known to reach a working magic within a few hundred candidates
+    private static final long[] MAGIC_SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT[sq] = steps(sq, KNIGHT_STEPS);
+            KING[sq] = steps(sq, KING_STEPS);
+            PAWN[0][sq] = steps(sq, new int[][] {{1, -1}, {1, 1}});
+            PAWN[1][sq] = steps(sq, new int[][] {{-1, -1}, {-1, 1}});
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            initMagic(sq, ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE);
+            initMagic(sq, BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    public static long pawn(Piece.Color color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    private static long steps(int square, int[][] offsets) {
+        int row = Bitboards.row(square);
+        int col = Bitboards.col(square);
+        long bb = 0L;
+        for (int[] offset : offsets) {
+            int r = row + offset[0];
+            int c = col + offset[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                bb |= Bitboards.bit(Bitboards.square(r, c));
+            }
+        }
+        return bb;
+    }
+
+    // Ray walk used only while building the tables; the edge square of each ray is included
+    private static long slide(int square, long occupied, int[][] directions) {
+        long bb = 0L;
+        for (int[] dir : directions) {
+            int r = Bitboards.row(square) + dir[0];
+            int c = Bitboards.col(square) + dir[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long b = Bitboards.bit(Bitboards.square(r, c));
+                bb |= b;
+                if ((occupied & b) != 0) break;
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return bb;
+    }
+
+    // Relevant blockers: every ray square except the last one before the edge
+    private static long relevantMask(int square, int[][] directions) {
+        long bb = 0L;
+        for (int[] dir : directions) {
+            int r = Bitboards.row(square) + dir[0];
+            int c = Bitboards.col(square) + dir[1];
+            while (r + dir[0] >= 0 && r + dir[0] < 8 && c + dir[1] >= 0 && c + dir[1] < 8) {
+                bb |= Bitboards.bit(Bitboards.square(r, c));
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return bb;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts, long[][] tables) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // Enumerate every blocker subset of the mask (carry-rippler) with its true attack set
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slide(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        int attempt = 0;
+        long seed = MAGIC_SEEDS[Bitboards.row(square)];
+        while (true) {
+            seed = xorshift(seed);
+            long a = seed * 2685821657736338717L;
+            seed = xorshift(seed);
+            long b = seed * 2685821657736338717L;
+            seed = xorshift(seed);
+            long magic = a & b & (seed * 2685821657736338717L); // sparse candidates converge much faster
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+
+            attempt++;
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = 64 - bits;
+                tables[square] = table;
+                return;
+            }
+        }
+    }
+
+    private static long xorshift(long x) {
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        return x;
+    }
+}
@@ -0,0 +1,49 @@
+package com.giveawaychess;
+
+// Helpers for 64-bit square sets. Square index is row * 8 + col, so bit 0 is board[0][0]
+// (white's queen-side rook corner) and bit 63 is board[7][7].
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    // Index of the lowest set bit; callers loop with "bb &= bb - 1" to walk a set
+    public static int first(long bb) {
+        return Long.numberOfTrailingZeros(bb);
+    }
+
+    public static int count(long bb) {
+        return Long.bitCount(bb);
+    }
+
+    public static String toString(long bb) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            for (int col = 0; col < 8; col++) {
+                sb.append((bb & bit(square(row, col))) != 0 ? 'x' : '.');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -17,6 +17,17 @@ public class BotConfigGenerator {
                                      List<String> pawnBehavior, 
                                      List<String> forcedMoveStrategy, 
                                      String wildCard) {
+        saveBotConfig(botName, authorName, pieceValues, null, capturePreferences, pawnBehavior, forcedMoveStrategy, wildCard);
+    }
+
+    // pieceSquareTables may be null; see BotProfile.pieceSquareTables for the layout
+    public static void saveBotConfig(String botName, String authorName, 
+                                     Map<String, Integer> pieceValues, 
+                                     Map<String, int[]> pieceSquareTables, 
+                                     List<String> capturePreferences, 
+                                     List<String> pawnBehavior, 
+                                     List<String> forcedMoveStrategy, 
+                                     String wildCard) {
         try {
             // Create a JSON object
             JSONObject botConfig = new JSONObject();
@@ -28,6 +39,16 @@ public class BotConfigGenerator {
             // Piece Values
             JSONObject pieceValuesJSON = new JSONObject(pieceValues);
             botConfig.put("pieceValues", pieceValuesJSON);
+            if (pieceSquareTables != null && !pieceSquareTables.isEmpty()) {
+                JSONObject tablesJSON = new JSONObject();
+                for (Map.Entry<String, int[]> table : pieceSquareTables.entrySet()) {
+                    if (table.getValue().length != 64) {
+                        throw new IllegalArgumentException(table.getKey() + " table needs 64 values");
+                    }
+                    tablesJSON.put(table.getKey(), new JSONArray(table.getValue()));
+                }
+                botConfig.put("pieceSquareTables", tablesJSON);
+            }
 
             // Strategic Incentives
             botConfig.put("capturePrioritization", new JSONArray(capturePreferences));
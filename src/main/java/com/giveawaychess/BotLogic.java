@@ -1,15 +1,53 @@
 package com.giveawaychess;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-
-public class BotLogic {
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class BotLogic implements AutoCloseable {
     private ChessBoard board;
     private GameManager gameManager;
     private BotProfile profile;
+    // The profile's values, rules and wild card as primitives for the search (DEFAULT for bot types)
+    private final CompiledProfile compiled;
 
     public BotType botType;  // Declare botType variable
+    private final MoveList moveList = new MoveList();
+
+    // Transposition table shared by this bot's searches; allocated on first use
+    private static final int DEFAULT_HASH_MB = 16;
+    private int hashSizeMb = DEFAULT_HASH_MB;
+    private TranspositionTable table;
+
+    private static final long TWO_SECONDS = 2000;
+    private volatile SearchLimits searchLimits; // null = each bot type's fixed depth
+    private volatile Search activeSearch;
+
+    // Lazy SMP: threads - 1 helpers search the same root alongside the caller, sharing the table
+    private static final long HELPER_IDLE_SECONDS = 30;
+    private int threads = 1;
+    private ExecutorService helperPool;
+    // Score the root moves of the giveaway searches as parallel ForkJoin tasks instead
+    private volatile boolean rootSplit;
+    // Positions with at most solvePieces pieces go to the proof solver before any search; 0 = never
+    private static final int SOLVER_MB = 16;
+    private static final long SOLVER_NODES = 100_000;
+    private volatile int solvePieces;
+    private ProofSolver solver;
+    // Opening book played from before any search, and how a move is picked from it; null = none
+    private volatile OpeningBook book = OpeningBook.getDefault();
+    private volatile OpeningBook.Choice bookChoice = OpeningBook.Choice.WEIGHTED;
+    // Endgame tables for the root move and the searches; null = none
+    private volatile Tablebase tablebase = Tablebase.getDefault();
+    // Table keys are salted per evaluator so scores on different scales never mix
+    private static final long GIVEAWAY_KEYS = 0L;
+    private static final long DEFENSIVE_KEYS = 0x3C6EF372FE94F82BL;
 
     public enum BotType {
         AGGRESSIVE, DEFENSIVE, RANDOM, SACRIFICIAL, HYBRID, SWEATY
@@ -21,505 +59,391 @@ public class BotLogic {
         this.gameManager = gameManager;
 
         this.botType = botType;
+        this.compiled = CompiledProfile.DEFAULT;
     }
 
     public BotLogic(ChessBoard board, GameManager gameManager, BotProfile profile) {
         this.board = board;
         this.gameManager = gameManager;
         this.profile = profile;
+        this.compiled = profile.compile();
 
         this.botType = BotType.RANDOM;
+        if (profile.threads > 0) {
+            setThreads(profile.threads);
+        }
+        this.rootSplit = profile.rootSplit;
+        this.solvePieces = profile.solvePieces;
+        if ("off".equals(profile.bookMode)) {
+            this.book = null;
+        } else if ("best".equals(profile.bookMode)) {
+            this.bookChoice = OpeningBook.Choice.BEST;
+        }
     }
 
     public Move getMove() {
         // System.out.println("Turn: " + gameManager.getTurnNumber() + " | Color: " + gameManager.getCurrentPlayer().getColor());
 
-        List<Move> possibleMoves = getAllValidMoves(getBotColor());
-        if (possibleMoves.isEmpty()) {
+        if (generateMoves(board, getBotColor()) == 0) {
             System.out.println("BotLogic: No valid moves found.");
             return null;
         }
 
-        if (profile != null && "Randomizer".equals(profile.wildCard)) {
+        if (compiled.wildCard() == CompiledProfile.WildCard.RANDOMIZER) {
             return getRandomMove(board, getBotColor());
         }
 
         // Handle "Skip Every 5th Turn"
-        if (profile != null && "Skip Every 5th Turn".equals(profile.wildCard) && shouldSkipTurn()) {
+        if (compiled.wildCard() == CompiledProfile.WildCard.SKIP_EVERY_5TH_TURN && shouldSkipTurn()) {
             // System.out.println("Skipping turn (wild card active)");
             return null;  // Treat this as passing the turn
         }
 
-        // Handle "Two-Second Decision Limit"
-        if (profile != null && "Two-Second Decision Limit".equals(profile.wildCard)) {
-            return getMoveWithTimeout(3, 2000);  // 2 seconds
+        // The book, the tables and the solver stand in for a search, so only the searching bots use them
+        if (isSearching()) {
+            Move opening = getBookMove(board, getBotColor());
+            if (opening != null) {
+                return opening;
+            }
+
+            Move known = getTablebaseMove(board, getBotColor());
+            if (known != null) {
+                return known;
+            }
+
+            Move proved = getProvedWin(board, getBotColor());
+            if (proved != null) {
+                return proved;
+            }
+        }
+
+        // Handle "Two-Second Decision Limit": as deep as the machine gets in 2 seconds
+        if (compiled.wildCard() == CompiledProfile.WildCard.TWO_SECOND_DECISION_LIMIT) {
+            return getCustomBotMove(SearchLimits.time(TWO_SECONDS));
         }
 
         if (profile != null) {
-                return getCustomBotMove(3);
+                return getCustomBotMove(limits(3));
         }
         return switch (botType) {
             case AGGRESSIVE -> getMostAggressiveMove(board, getBotColor());
-            case DEFENSIVE -> getDefensiveMove(board, getBotColor(), 3);
+            case DEFENSIVE -> getDefensiveMove(board, getBotColor(), limits(3));
             case RANDOM -> getRandomMove(board, getBotColor());
-            case SACRIFICIAL -> getSacrificialMove(board, getBotColor(), 3);
+            case SACRIFICIAL -> getSacrificialMove(board, getBotColor(), limits(3));
             case HYBRID -> getAdaptiveMove(board, getBotColor());
-            case SWEATY -> getBestMove(board, getBotColor(), 3);
+            case SWEATY -> getBestMove(board, getBotColor(), limits(3));
         };
     }
 
-    public Move getCustomBotMove(int depth) {
-        Piece.Color botColor = getBotColor();
-        List<Move> legalMoves = getAllValidMoves(botColor);
+    // Profile bots and the bot types that always search; RANDOM, AGGRESSIVE and HYBRID play by simpler rules
+    private boolean isSearching() {
+        return profile != null
+            || botType == BotType.SWEATY || botType == BotType.SACRIFICIAL || botType == BotType.DEFENSIVE;
+    }
 
-        if (profile != null) {
-            if (profile.wildCard.contains("Shortened Lookahead")) {
-                depth = 2;
+    // Limits set with setSearchLimits, or else a fixed search to the bot type's usual depth
+    private SearchLimits limits(int depth) {
+        SearchLimits limits = searchLimits;
+        return limits != null ? limits : SearchLimits.depth(depth);
+    }
+
+    // Time or node budget for every search this bot makes; null goes back to the fixed depths
+    public void setSearchLimits(SearchLimits limits) {
+        this.searchLimits = limits;
+    }
+
+    // Threads per search, the calling thread included. Helpers only fill the transposition table for the
+    // caller's search, which alone decides the move, so a bot plays the same strength at any count.
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads != this.threads && helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        this.threads = threads;
+    }
+
+    // Scores root moves in parallel on the common ForkJoinPool for the bots that want the lowest score
+    // (custom profiles, SWEATY, SACRIFICIAL). Replaces the helper threads for those searches.
+    public void setRootSplit(boolean rootSplit) {
+        this.rootSplit = rootSplit;
+    }
+
+    // Hands positions with at most 'pieces' pieces on the board to the proof solver before searching;
+    // a proved win is played straight away. 0 turns the solver off.
+    public void setSolvePieces(int pieces) {
+        this.solvePieces = Math.max(0, pieces);
+    }
+
+    // The move that keeps a win the proof solver proved for 'playerColor', or null when the position has
+    // too many pieces or no win was proved within SOLVER_NODES. Proved positions stay in the solver's
+    // table, so the moves after the first one come almost for free.
+    public Move getProvedWin(ChessBoard board, Piece.Color playerColor) {
+        int pieces = solvePieces;
+        if (pieces == 0 || Long.bitCount(board.getPosition().occupied()) > pieces
+            || compiled.wildCard() == CompiledProfile.WildCard.NO_QUEEN_MOVES) {
+            return null;  // the solver knows nothing of wild cards
+        }
+        Position pos = board.getPosition().copy();
+        pos.setSideToMove(playerColor);
+        ProofSolver proofSolver = getProofSolver();
+        synchronized (proofSolver) {
+            if (!proofSolver.proveWin(pos, SOLVER_NODES)) {
+                return null;
             }
+            return toMove(board, proofSolver.bestMove());
         }
-    
-        if (legalMoves.isEmpty() || board.isGameOver()) {
+    }
+
+    // Opening book to play from; null turns it off. By default the book in the file named by the
+    // giveawaychess.book system property.
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    // BEST always plays the book's highest-weighted move, WEIGHTED picks in proportion to the weights
+    public void setBookChoice(OpeningBook.Choice choice) {
+        this.bookChoice = choice;
+    }
+
+    // A book move for 'playerColor' that its wild cards allow, or null when the book has none
+    public Move getBookMove(ChessBoard board, Piece.Color playerColor) {
+        OpeningBook openingBook = book;
+        if (openingBook == null || board.getCurrentPlayer() != playerColor || generateMoves(board, playerColor) == 0) {
+            return null;  // book keys include the side to move
+        }
+        int move = openingBook.choose(board.getPosition().hash(), moveList, bookChoice, ThreadLocalRandom.current());
+        return toMove(board, move);
+    }
+
+    // Endgame tables to play from and to cut the searches off with; null turns them off. By default
+    // the tables in the directory named by the giveawaychess.tablebases system property.
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    // The tablebase move for 'playerColor' (fastest win, a draw, or slowest loss), or null when the
+    // tables do not cover the position
+    public Move getTablebaseMove(ChessBoard board, Piece.Color playerColor) {
+        Tablebase tb = tablebase;
+        if (tb == null || compiled.wildCard() == CompiledProfile.WildCard.NO_QUEEN_MOVES) {
             return null;
         }
-    
-        // Backup current board state
-        Piece[][] storedBoard = board.deepCopyBoard(board.getBoardArray());
-        Piece.Color storedPlayer = board.getCurrentPlayer();
-        boolean wasGameOver = board.isGameOver();
-    
-        Move bestMove = null;
-        int bestEval = Integer.MAX_VALUE;
-    
-        for (Move move : legalMoves) {
-            board.handleMove(move, gameManager, true);
-            int eval = evaluateCustomMove(board, botColor, move, depth);
-            board.undoMove(move);
-    
-            if (eval < bestEval) {
-                bestEval = eval;
-                bestMove = move;
-            }
+        Position pos = board.getPosition().copy();
+        pos.setSideToMove(playerColor);
+        return toMove(board, tb.bestMove(pos));
+    }
+
+    private synchronized ProofSolver getProofSolver() {
+        if (solver == null) {
+            solver = new ProofSolver(SOLVER_MB);
         }
-    
-        // Restore original state
-        board.restoreBoardState(storedBoard, storedPlayer, gameManager, wasGameOver);
-        return bestMove;
+        return solver;
     }
 
-    private int evaluateCustomMove(ChessBoard board, Piece.Color color, Move move, int depth) {
-        // Select appropriate evaluation strategy
-        boolean usePositional = profile.forcedMoveStrategy.contains("Maximize positional advantage even when forced");
-        boolean createOpponentForces = profile.forcedMoveStrategy.contains("Try to create more forced moves for the opponent");
-    
-        int score = usePositional
-            ? evaluateBoardDefensive(board, color)  // treat as a positional play
-            : minimaxAlphaBeta(board, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, true, color);  // normal eval
-    
-        // ----- CAPTURE PRIORITIZATION -----
-        if (move.getCapturedPiece() != null) {
-            if (profile.capturePrioritization.contains("Prefer capturing higher-valued pieces")) {
-                score -= getPieceValue(move.getCapturedPiece()) * 3;
-            }
-            if (profile.capturePrioritization.contains("Prefer capturing to maximize mobility")) {
-                int mobilityGain = evaluateMobility(color) - getAllValidMoves(color).size();
-                score -= mobilityGain * 2;  // encourage moves that increase options
-            }
-            if (profile.capturePrioritization.contains("Capture only when forced") &&
-                !board.hasMandatoryCapture(color, board.getBoardArray())) {
-                score += 25;  // discourage voluntary captures
-            }
+    // Helper threads that sit idle between moves die off, so a bot that is never closed does not keep them
+    private synchronized ExecutorService getHelperPool() {
+        if (threads > 1 && helperPool == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads - 1, threads - 1, HELPER_IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "bot-search-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            helperPool = pool;
+        }
+        return helperPool;
+    }
+
+    // Shuts the helper threads down, e.g. when the bot's game is over. The bot stays usable: a later
+    // search starts new helpers.
+    @Override
+    public synchronized void close() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
         }
-    
-        // ----- PAWN BEHAVIOR -----
-        if (move.getMovedPiece().getType() == Piece.PieceType.PAWN) {
-            int rowDelta = Math.abs(move.getToRow() - move.getFromRow());
-    
-            if (profile.pawnBehavior.contains("Prefer pushing pawns early")) {
-                int turnNumber = gameManager.getTurnNumber();  // Assumes you track turn count
-                if (turnNumber < 10) score -= rowDelta * 2;  // push early
-            }
-    
-            if (profile.pawnBehavior.contains("Delay pawn moves for later")) {
-                int turnNumber = gameManager.getTurnNumber();
-                if (turnNumber < 10) score += 10;  // discourage early pawn use
-            }
-    
-            if (profile.pawnBehavior.contains("Prioritize promoting pawns") &&
-                move.getToRow() == (color == Piece.Color.WHITE ? 0 : 7)) {
-                score -= 30;  // strongly reward potential promotion
-            }
+    }
+
+    // Asks a search running on another thread to stop; it still returns its best move so far
+    public void stopSearch() {
+        Search search = activeSearch;
+        if (search != null) {
+            search.stop();
+        }
+    }
+
+    public Move getCustomBotMove(int depth) {
+        return getCustomBotMove(SearchLimits.depth(depth));
+    }
+
+    public Move getCustomBotMove(SearchLimits limits) {
+        Piece.Color botColor = getBotColor();
+
+        if (compiled.wildCard() == CompiledProfile.WildCard.SHORTENED_LOOKAHEAD) {
+            limits = limits.withMaxDepth(2);
         }
     
-        // ----- FORCED MOVE STRATEGY -----
-        if (getAllValidMoves(color).size() == 1) {
-            if (profile.forcedMoveStrategy.contains("Find the move that reduces material fastest")) {
-                score -= countMaterial(color);  // reward material loss
-            } else if (createOpponentForces) {
-                Piece.Color opponent = (color == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
-                int forcedMoves = getAllValidMoves(opponent).size();
-                score -= (32 - forcedMoves);  // reward reducing their options
-            }
+        if (board.isGameOver()) {
+            return null;
         }
     
-        return score;
+        // Search a private copy of the position; moves are made and unmade on it, never on the board
+        Search search = newSearch(board, botColor, this::evaluateBoard, true, GIVEAWAY_KEYS);
+        int turnNumber = gameManager != null ? gameManager.getTurnNumber() : 0;
+        int bestMove = searchRoot(search, limits, true,
+            (s, move, depth, bound) -> evaluateCustomMove(s, botColor, move, depth, turnNumber, bound));
+        return toMove(board, bestMove);
+    }
+
+    // Scores the position right after the bot played 'move' on the search position. A score at or above
+    // 'bound' cannot win at the root, so the search below only has to prove that much.
+    private int evaluateCustomMove(Search search, Piece.Color color, int move, int depth, int turnNumber, int bound) {
+        // The profile's adjustments come first so the search can be bounded by what is left
+        int score = compiled.scoreMove(search, color, move, turnNumber);
+
+        return score + (compiled.has(CompiledProfile.POSITIONAL)
+            ? evaluateBoardDefensive(search.position(), color)  // treat as a positional play
+            : search.alphaBeta(depth - 1, 1, Integer.MIN_VALUE, beta((long) bound - score), true));  // normal eval
+    }
+
+    // A search window edge for 'bound', kept inside the int range and above Integer.MIN_VALUE
+    private static int beta(long bound) {
+        return (int) Math.max(Integer.MIN_VALUE + 1L, Math.min(Integer.MAX_VALUE, bound));
     }
     
-    private int countMaterial(Piece.Color color) {
-        int total = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece p = board.getPieceAt(row, col);
-                if (p != null && p.getColor() == color) {
-                    total += getPieceValue(p);
-                }
-            }
-        }
-        return total;
+    // Sum of piece values for one side; search positions keep it up to date as moves are made
+    private int material(Position position, Piece.Color color) {
+        return position.material(color);
     }
     
     
 
     private Piece.Color getBotColor() {
-        return gameManager.getCurrentPlayer().getColor();
+        return board.getCurrentPlayer();
     }    
 
-    private int evaluateBoard(ChessBoard board, Piece.Color playerColor) {
-        if (board.isGameOver() && board.getWinner() != playerColor) {
-            return Integer.MAX_VALUE; // Bot loses = worst possible outcome
-        }
-    
-        int botScore = 0;
-        int opponentScore = 0;
-    
+    int evaluateBoard(Position pos, Piece.Color playerColor) {
         Piece.Color opponentColor = (playerColor == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
-    
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPieceAt(row, col);
-                if (piece != null) {
-                    if (piece.getColor() == playerColor) {
-                        botScore += getPieceValue(piece);
-                    } else if (piece.getColor() == opponentColor) {
-                        opponentScore += getPieceValue(piece);
-                    }
-                }
-            }
-        }
+
+        int botScore = material(pos, playerColor) + pos.placement(playerColor);
+        int opponentScore = material(pos, opponentColor) + pos.placement(opponentColor);
     
         int score = botScore - opponentScore;
     
-        List<Move> botMoves = getAllValidMoves(playerColor);
-        for (Move move : botMoves) {
-            if (board.isCaptureMove(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol())) {
-                score -= 1;
+        // One point per capture the bot has available; under "No Queen Moves" the queens' captures only
+        // count when no other piece can capture
+        int captures = AttackMap.captureCount(pos, playerColor);
+        if (compiled.wildCard() == CompiledProfile.WildCard.NO_QUEEN_MOVES) {
+            int queenCaptures = AttackMap.queenCaptureCount(pos, playerColor);
+            if (captures > queenCaptures) {
+                captures -= queenCaptures;
             }
         }
+        score -= captures;
     
         return score;
     }
     
 
-    int evaluateMobility(Piece.Color color) {
-        return getAllValidMoves(color).size();
+    // Legal moves for 'playerColor' on the live board into moveList, honouring the "No Queen Moves" wild card
+    private int generateMoves(ChessBoard board, Piece.Color playerColor) {
+        board.generateLegalMoves(playerColor, moveList);
+        if (compiled.wildCard() == CompiledProfile.WildCard.NO_QUEEN_MOVES) {
+            moveList.excludePiece(board.getPosition(), Piece.PieceType.QUEEN);  // 👈 queen moves only when nothing else is left
+        }
+        return moveList.size();
     }
 
     public List<Move> getAllValidMoves(Piece.Color playerColor) {
         List<Move> allValidMoves = new ArrayList<>();
-        List<Move> queenMoves = new ArrayList<>();
-        boolean mustCapture = board.hasMandatoryCapture(playerColor, board.getBoardArray());
-    
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPieceAt(row, col);
-    
-                if (piece != null && piece.getColor() == playerColor) {
-                    List<int[]> rawMoves = board.getValidMoves(row, col);
-                    for (int[] move : rawMoves) {
-                        int endRow = move[0];
-                        int endCol = move[1];
-    
-                        if (!board.isValidMove(row, col, endRow, endCol)) continue;
-                        if (mustCapture && !board.isCaptureMove(row, col, endRow, endCol)) continue;
-    
-                        Move m = new Move(row, col, endRow, endCol, piece);
-                        if (profile != null && "No Queen Moves".equals(profile.wildCard) && piece.getType() == Piece.PieceType.QUEEN) {
-                            queenMoves.add(m);
-                        } else {
-                            allValidMoves.add(m);
-                        }
-                    }
-                }
-            }
-        }
-    
-        // 👇 If no non-queen moves, allow queen moves
-        if (allValidMoves.isEmpty()) {
-            return queenMoves;
+        int count = generateMoves(board, playerColor);
+        for (int i = 0; i < count; i++) {
+            allValidMoves.add(toMove(board, moveList.get(i)));
         }
-    
         return allValidMoves;
     }
     
       
     // Assign values (lower is better)
-    private int getPieceValue(Piece piece) {
-        if (profile != null && profile.pieceValues != null) {
-            String key = piece.getType().name().charAt(0) + piece.getType().name().substring(1).toLowerCase();
-            Integer value = profile.pieceValues.get(key);
-            if (value != null) return value;
-        }
-        return switch (piece.getType()) {
-            case PAWN -> 1;
-            case KNIGHT, BISHOP -> 3;
-            case ROOK -> 5;
-            case QUEEN -> 9;
-            default -> 0;
-        };
+    private int getPieceValue(Piece.PieceType type) {
+        return compiled.pieceValue(type);
     }
 
-    private int minimax(ChessBoard board, int depth, boolean isMaximizing, Piece.Color playerColor, boolean isDefensive) {
-        if (depth == 0 || board.isGameOver()) {
-            return isDefensive ? evaluateBoardDefensive(board, playerColor) : evaluateBoard(board, playerColor);
-        }
-    
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-    
-        if (isMaximizing) {  // Opponent’s turn (tries to keep pieces in defensive mode)
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : legalMoves) {
-                board.handleMove(move, gameManager, true);
-                int eval = minimax(board, depth - 1, false, playerColor, isDefensive);
-                board.undoMove(move);
-                maxEval = Math.max(maxEval, eval);
-            }
-            return maxEval;
-        } else {  // Bot’s turn (tries to lose pieces in normal mode)
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : legalMoves) {
-                board.handleMove(move, gameManager, true);
-                int eval = minimax(board, depth - 1, true, playerColor, isDefensive);
-                board.undoMove(move);
-                minEval = Math.min(minEval, eval);
-            }
-            return minEval;
-        }
-    }
-
-    private int minimaxAlphaBeta(ChessBoard board, int depth, int alpha, int beta, boolean isMaximizing, Piece.Color playerColor) {
-        // System.out.println("Minimax Alpha Beta Called, Depth: " + depth);
-        if (depth == 0 || board.isGameOver()) {
-            return evaluateBoard(board, playerColor);
-        }
-        
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        // System.out.println("legal moves are: " + getAllValidMoves(playerColor));
-    
-        if (isMaximizing) {  // Opponent’s turn
-            // System.out.println("Minimax Alpha Beta Maximizing Called");
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : legalMoves) {
-                board.handleMove(move, gameManager, true);
-                int eval = minimaxAlphaBeta(board, depth - 1, alpha, beta, false, playerColor);
-                board.undoMove(move);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) break;  // Prune
-            }
-            return maxEval;
-        } else {  // Bot’s turn
-            // System.out.println("Minimax Alpha Beta Else Called");
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : legalMoves) {
-                board.handleMove(move, gameManager, true);
-                int eval = minimaxAlphaBeta(board, depth - 1, alpha, beta, true, playerColor);
-                board.undoMove(move);
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) break;  // Prune
-            }
-            return minEval; 
-        }
-        }
-
     public Move getBestMove(ChessBoard board, Piece.Color playerColor, int depth) {
-        // **Store board state before simulation**
-        Piece[][] storedBoard = board.deepCopyBoard(board.getBoardArray());
-        Piece.Color storedPlayer = board.getCurrentPlayer();
-        boolean wasGameOver = board.isGameOver(); // Store the game-over state
+        return getBestMove(board, playerColor, SearchLimits.depth(depth));
+    }
 
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        // System.out.println("Number of legal moves found: " + legalMoves.size());
-        if (legalMoves.isEmpty() || wasGameOver) {
+    public Move getBestMove(ChessBoard board, Piece.Color playerColor, SearchLimits limits) {
+        if (board.isGameOver()) {
             return null; // If game is over, bot should not return any move
         }
 
-        Move bestMove = null;
-        int bestEval = Integer.MAX_VALUE;  // Bot wants the lowest score
-
-        for (Move move : legalMoves) {
-            board.handleMove(move, gameManager, true);
-
-            boolean wasCapture = move.getCapturedPiece() != null || move.wasEnPassant();
-
-            int eval = minimaxAlphaBeta(board, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, true, playerColor);
-
-            if (wasCapture) {
-                eval -= 5;
-            }
-
-            board.undoMove(move);        
-        
-            if (eval < bestEval) {
-                bestEval = eval;
-                bestMove = move;
-            }
-        }
-        
-
-        // **Restore board state after simulation, preserving game-over state**
-        board.restoreBoardState(storedBoard, storedPlayer, gameManager, wasGameOver); // Marking as simulation
-
-        // System.out.println("Best Move found: " + bestMove);
-
-        return bestMove;
+        Search search = newSearch(board, playerColor, this::evaluateBoard, true, GIVEAWAY_KEYS);
+        // Bot wants the lowest score
+        int bestMove = searchRoot(search, limits, true, (s, move, depth, bound) -> {
+            int bonus = s.position().lastCaptured() != Position.EMPTY ? 5 : 0;
+            return s.alphaBeta(depth - 1, 1, Integer.MIN_VALUE, beta((long) bound + bonus), true) - bonus;
+        });
+        return toMove(board, bestMove);
     }
     
 
     public Move getMostAggressiveMove(ChessBoard board, Piece.Color playerColor) {
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        // if (legalMoves.isEmpty()) {
-        //     System.out.println("BotLogic: No valid moves found.");
-        //     return null;
-        // } else {
-        //     System.out.println("List of Valid Moves " + legalMoves);
-        // }
+        int count = generateMoves(board, playerColor);
         //Logic is completely off here
-        Move bestMove = null;
+        int bestMove = MoveGenerator.NO_MOVE;
         int maxCaptureValue = -1;
     
-        for (Move move : legalMoves) {
-            if (board.isValidMove(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol())) {
-                int pieceValue = getPieceValue(board.getPieceAt(move.getFromRow(), move.getFromCol()));
-                // System.out.print("Move " + move + " has a piece value of " + pieceValue);
-                if (pieceValue > maxCaptureValue) {
-                    maxCaptureValue = pieceValue;
-                    bestMove = move;
-                }
+        for (int i = 0; i < count; i++) {
+            int move = moveList.get(i);
+            int pieceValue = getPieceValue(Position.typeOf(board.getPosition().pieceAt(MoveGenerator.from(move))));
+            if (pieceValue > maxCaptureValue) {
+                maxCaptureValue = pieceValue;
+                bestMove = move;
             }
         }
-        return bestMove;
+        return toMove(board, bestMove);
     }
 
-    private int evaluateBoardDefensive(ChessBoard board, Piece.Color playerColor) {
-        if (board.isGameOver() && board.getWinner() != playerColor) {
-            return Integer.MIN_VALUE; // Defensive bot strongly avoids losing
-        }
-    
-        int score = 0;
-    
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPieceAt(row, col);
-                if (piece != null && piece.getColor() == playerColor) {
-                    score += getPieceValue(piece);
-                    if (board.isPieceHanging(row, col)) {
-                        score += 2;  // Extra penalty for vulnerable pieces
-                    }
-                }
-            }
-        }
-    
+    private int evaluateBoardDefensive(Position pos, Piece.Color playerColor) {
+        int score = material(pos, playerColor) + pos.placement(playerColor);
+        score += 2 * Long.bitCount(AttackMap.hanging(pos, playerColor));  // Extra penalty for vulnerable pieces
         return score;
     }
     
 
     public Move getDefensiveMove(ChessBoard board, Piece.Color playerColor, int depth) {
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        Move bestMove = null;
-        int bestEval = Integer.MIN_VALUE; // Defensive bot wants the highest board score
-
-        Piece[][] storedBoard = board.deepCopyBoard(board.getBoardArray());
-        Piece.Color storedPlayer = board.getCurrentPlayer();
-        boolean wasGameOver = board.isGameOver(); // Store the game-over state
-    
-        for (Move move : legalMoves) {
-            board.handleMove(move, gameManager, true);
-            int eval = minimax(board, depth - 1, false, playerColor, true);
-            board.undoMove(move);
-    
-            if (eval > bestEval) {
-                bestEval = eval;
-                bestMove = move;
-            }
-        }
+        return getDefensiveMove(board, playerColor, SearchLimits.depth(depth));
+    }
 
-        board.restoreBoardState(storedBoard, storedPlayer, gameManager, wasGameOver); // Marking as simulation
-        return bestMove;
+    public Move getDefensiveMove(ChessBoard board, Piece.Color playerColor, SearchLimits limits) {
+        Search search = newSearch(board, playerColor, this::evaluateBoardDefensive, false, DEFENSIVE_KEYS);
+        // Defensive bot wants the highest board score
+        int bestMove = searchRoot(search, limits, false, (s, move, depth, bound) -> s.minimax(depth - 1, 1, false));
+        return toMove(board, bestMove);
     }
     
     
 
     public Move getRandomMove(ChessBoard board, Piece.Color playerColor) {
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        if (legalMoves.isEmpty()) return null;
-    
-        Collections.shuffle(legalMoves);
-        for (Move move : legalMoves) {
-            if (board.isValidMove(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol())) {
-                return move;
-            }
-        }
-        return legalMoves.get(0);
-    }
-
-    private int minimaxSacrificial(ChessBoard board, int depth, int alpha, int beta, boolean isMaximizing, Piece.Color playerColor) {
-        if (depth == 0 || board.isGameOver()) {
-            return evaluateBoard(board, playerColor);
-        }
-    
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        legalMoves.sort((m1, m2) -> board.isCaptureMove(m2.getFromRow(), m2.getFromCol(), m2.getToRow(), m2.getToCol()) ? 1 : -1);
-    
-        int bestEval = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-    
-        for (Move move : legalMoves) {
-            board.handleMove(move, gameManager, true);
-            int eval = minimaxSacrificial(board, depth - 1, alpha, beta, !isMaximizing, playerColor);
-            board.undoMove(move);
-    
-            if (isMaximizing) {
-                bestEval = Math.max(bestEval, eval);
-                alpha = Math.max(alpha, eval);
-            } else {
-                bestEval = Math.min(bestEval, eval);
-                beta = Math.min(beta, eval);
-            }
-            if (beta <= alpha) break;
-        }
-        return bestEval;
+        int count = generateMoves(board, playerColor);
+        if (count == 0) return null;
+        return toMove(board, moveList.get(ThreadLocalRandom.current().nextInt(count)));
     }
 
     public Move getSacrificialMove(ChessBoard board, Piece.Color playerColor, int depth) {
-        List<Move> legalMoves = getAllValidMoves(playerColor);
-        Move bestMove = null;
-        int bestEval = Integer.MAX_VALUE; // Sacrificial bot wants the lowest score (to lose pieces)
-
-        Piece[][] storedBoard = board.deepCopyBoard(board.getBoardArray());
-        Piece.Color storedPlayer = board.getCurrentPlayer();
-        boolean wasGameOver = board.isGameOver(); // Store the game-over state
-
-        for (Move move : legalMoves) {
-            board.handleMove(move, gameManager, true);
-            int eval = minimaxSacrificial(board, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false, playerColor);
-            board.undoMove(move);
-            if (eval < bestEval) {
-                bestEval = eval;
-                bestMove = move;
-            }
-        }
+        return getSacrificialMove(board, playerColor, SearchLimits.depth(depth));
+    }
 
-        board.restoreBoardState(storedBoard, storedPlayer, gameManager, wasGameOver); // Marking as simulation
-        return bestMove;
+    public Move getSacrificialMove(ChessBoard board, Piece.Color playerColor, SearchLimits limits) {
+        Search search = newSearch(board, playerColor, this::evaluateBoard, true, GIVEAWAY_KEYS);
+        // Sacrificial bot wants the lowest score (to lose pieces). The opponent is assumed to cooperate
+        // on the first reply, hence the minimizing child.
+        int bestMove = searchRoot(search, limits, true,
+            (s, move, depth, bound) -> s.alphaBeta(depth - 1, 1, Integer.MIN_VALUE, beta(bound), false));
+        return toMove(board, bestMove);
     }
     
 
@@ -528,7 +452,7 @@ public class BotLogic {
         if (pieceCount > 10) {
             return getMostAggressiveMove(board, playerColor);
         } else if (pieceCount < 5) {
-            return getBestMove(board, playerColor, 3);
+            return getBestMove(board, playerColor, limits(3));
         } else {
             return getRandomMove(board, playerColor);
         }
@@ -539,39 +463,188 @@ public class BotLogic {
     }
     
     public static Move simulateWithRollback(ChessBoard board, GameManager gameManager, BotSearchFunction logic) {
-        Piece[][] storedBoard = board.deepCopyBoard(board.getBoardArray());
+        int storedPly = board.getPosition().getPly();
         Piece.Color storedPlayer = board.getCurrentPlayer();
-        boolean wasGameOver = board.isGameOver();
     
         Move result = logic.run(board);
-        board.restoreBoardState(storedBoard, storedPlayer, gameManager, wasGameOver);
+        board.rollbackTo(storedPly);
+        gameManager.setCurrentPlayer(storedPlayer);
         return result;
     }
 
-    public void setBoard(ChessBoard board) {
-        this.board = board;
+    // Scores one root move, already played on the search position, searched to 'depth' plies in total.
+    // For bots that want the lowest score, 'bound' is the best score so far: results at or above it lose
+    // anyway and may be cut off there.
+    interface RootScorer {
+        int score(Search search, int move, int depth, int bound);
     }
 
-    public Move getMoveWithTimeout(int depth, int timeoutMillis) {
-        final Move[] result = new Move[1];
-        Thread worker = new Thread(() -> {
-            result[0] = getCustomBotMove(depth);  // Run your usual logic here
-        });
-    
-        worker.start();
+    // Iterative deepening at the root: every move is scored at depth 1, then 2, and so on up to the
+    // limit. The best move of the deepest finished iteration is returned; the transposition table
+    // carries each iteration's results into the next. An iteration cut short by the limits is dropped.
+    // With root splitting on, each iteration scores the moves in parallel (see RootSplitTask).
+    private int searchRoot(Search search, SearchLimits limits, boolean lowerIsBetter, RootScorer scorer) {
+        Position pos = search.position();
+        int count = search.generate(0);
+        MoveList moves = search.moves(0);
+        if (count <= 1) {
+            return count == 0 ? MoveGenerator.NO_MOVE : moves.get(0);  // nothing to think about
+        }
+
+        activeSearch = search;
+        search.start(limits);
+        boolean split = rootSplit && lowerIsBetter;
+        List<Search> helpers = new ArrayList<>();
+        List<Future<?>> helperTasks = split ? List.of() : startHelpers(search, limits, scorer, helpers);
+        int bestMove = moves.get(0);  // in case even depth 1 runs out of time
         try {
-            worker.join(timeoutMillis);
-            if (worker.isAlive()) {
-                worker.interrupt(); // Cancel if still running
-                System.out.println("Move timed out. Picking random legal move.");
-                return getRandomMove(board, getBotColor()); // Fallback if timeout
+            for (int depth = 1; depth <= limits.getDepth(); depth++) {
+                if (split) {
+                    int iterationBest = RootSplitTask.search(search, depth, scorer);
+                    if (search.isStopped()) {
+                        break;
+                    }
+                    bestMove = iterationBest;
+                    if (!search.hasTimeForNextDepth()) {
+                        break;
+                    }
+                    continue;
+                }
+                int iterationBest = MoveGenerator.NO_MOVE;
+                int bestEval = lowerIsBetter ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+                for (int i = 0; i < count && !search.isStopped(); i++) {
+                    pos.makeMove(moves.get(i));
+                    int eval = scorer.score(search, moves.get(i), depth, bestEval);
+                    pos.unmakeMove();
+
+                    if (!search.isStopped() && (lowerIsBetter ? eval < bestEval : eval > bestEval)) {
+                        bestEval = eval;
+                        iterationBest = moves.get(i);
+                    }
+                }
+                if (search.isStopped()) {
+                    break;
+                }
+                bestMove = iterationBest;
+                if (!search.hasTimeForNextDepth()) {
+                    break;
+                }
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        } finally {
+            activeSearch = null;
+            stopHelpers(helpers, helperTasks);
         }
-    
-        return result[0] != null ? result[0] : getRandomMove(board, getBotColor());
-    }     
+        return bestMove;
+    }
+
+    // Submits one helper per extra thread; 'helpers' receives their searches so they can be stopped
+    private List<Future<?>> startHelpers(Search search, SearchLimits limits, RootScorer scorer, List<Search> helpers) {
+        List<Future<?>> tasks = new ArrayList<>();
+        ExecutorService pool;
+        int count;
+        synchronized (this) {
+            pool = getHelperPool();
+            count = threads - 1;
+        }
+        for (int id = 1; pool != null && id <= count; id++) {
+            Search helper = search.helper();
+            int helperId = id;
+            helpers.add(helper);
+            tasks.add(pool.submit(() -> runHelper(helper, helperId, limits.getDepth(), scorer)));
+        }
+        return tasks;
+    }
+
+    // A helper walks the same root as the main search but never picks a move. Odd helpers run one ply
+    // ahead and each starts at a different root move, so the threads put different parts of the tree
+    // into the table instead of all repeating the same work.
+    private static void runHelper(Search helper, int id, int maxDepth, RootScorer scorer) {
+        Position pos = helper.position();
+        int count = helper.generate(0);
+        MoveList moves = helper.moves(0);
+        helper.start(SearchLimits.depth(maxDepth + 1));
+        for (int depth = 1 + (id & 1); depth <= maxDepth + 1 && !helper.isStopped(); depth++) {
+            for (int i = 0; i < count && !helper.isStopped(); i++) {
+                int move = moves.get((i + id) % count);
+                pos.makeMove(move);
+                scorer.score(helper, move, depth, Integer.MAX_VALUE);
+                pos.unmakeMove();
+            }
+        }
+    }
+
+    // Stops the helpers and waits for them, so none is still writing when the next search starts. A
+    // helper that failed fails the search too, once all of them have stopped.
+    private static void stopHelpers(List<Search> helpers, List<Future<?>> tasks) {
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        Throwable failure = null;
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("search helper failed", failure);
+        }
+    }
+
+    private Search newSearch(ChessBoard board, Piece.Color botColor, Search.Evaluator evaluator, boolean lowerIsBetter, long keySalt) {
+        boolean noQueenMoves = compiled.wildCard() == CompiledProfile.WildCard.NO_QUEEN_MOVES;
+        TranspositionTable table = getTranspositionTable();
+        table.newSearch();
+        Search search = new Search(board.getPosition(), botColor, evaluator, lowerIsBetter, noQueenMoves, table, keySalt);
+        search.position().setWeights(compiled.pieceWeights(), compiled.squareWeights());
+        search.setTablebase(noQueenMoves ? null : tablebase);  // the tables know nothing of wild cards
+        return search;
+    }
+
+    private synchronized TranspositionTable getTranspositionTable() {
+        if (table == null) {
+            table = new TranspositionTable(hashSizeMb);
+        }
+        return table;
+    }
+
+    // Size of the transposition table in megabytes; takes effect on the next search
+    public synchronized void setHashSize(int megabytes) {
+        if (megabytes != hashSizeMb) {
+            hashSizeMb = megabytes;
+            table = null;
+        }
+    }
+
+    // Forgets every stored search result, e.g. between unrelated games
+    public synchronized void clearHash() {
+        if (table != null) {
+            table.clear();
+        }
+    }
+
+    // Wraps a packed move for the live board (null for NO_MOVE)
+    private Move toMove(ChessBoard board, int move) {
+        if (move == MoveGenerator.NO_MOVE) {
+            return null;
+        }
+        return new Move(move, Piece.of(board.getPosition().pieceAt(MoveGenerator.from(move))));
+    }
+
+    public void setBoard(ChessBoard board) {
+        this.board = board;
+    }
 
     public boolean shouldSkipTurn() {    
         int turn = gameManager.getTurnNumber();
@@ -579,8 +652,7 @@ public class BotLogic {
         // Shift skip pattern based on bot color
     int skipOffset = (botColor == Piece.Color.WHITE) ? 4 : 5;
 
-    return profile != null &&
-    "Skip Every 5th Turn".equals(profile.wildCard) &&
+    return compiled.wildCard() == CompiledProfile.WildCard.SKIP_EVERY_5TH_TURN &&
     turn == skipOffset ||
     (turn > skipOffset && (turn - skipOffset) % 5 == 0) &&
     gameManager.getCurrentPlayer().getColor() == botColor;
@@ -7,10 +7,26 @@ public class BotProfile {
     public String botName;
     public String authorName;
     public Map<String, Integer> pieceValues;
+    // Optional, by the same names as pieceValues: 64 values from a1 to h8 added to the piece's value on
+    // each square (lower is better), as seen by White; Black's pieces use them mirrored top to bottom
+    public Map<String, int[]> pieceSquareTables;
     public List<String> capturePrioritization;
     public List<String> pawnBehavior;
     public List<String> forcedMoveStrategy;
     public String wildCard;
+    public int threads; // search threads for this bot; 0 = BotLogic's default
+    public boolean rootSplit; // score root moves in parallel (BotLogic.setRootSplit)
+    public int solvePieces; // try the proof solver first at this many pieces or fewer; 0 = never
+    public String bookMode; // opening book moves: "weighted" (default), "best" or "off"
+    public CompiledProfile compiled; // filled in by BotProfileLoader, or by compile() on first use
 
     // Optional utility methods to interact with this data
+
+    // The fields above as the search uses them; compiled once, so set them all before the first call
+    public CompiledProfile compile() {
+        if (compiled == null) {
+            compiled = CompiledProfile.of(this);
+        }
+        return compiled;
+    }
 }
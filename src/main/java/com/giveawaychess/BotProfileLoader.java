@@ -23,10 +23,32 @@ public class BotProfileLoader {
         }
         profile.pieceValues = pieceValues;
 
+        JSONObject tables = json.optJSONObject("pieceSquareTables");
+        if (tables != null) {
+            Map<String, int[]> pieceSquareTables = new HashMap<>();
+            for (String key : tables.keySet()) {
+                JSONArray squares = tables.getJSONArray(key);
+                if (squares.length() != 64) {
+                    throw new IOException(filePath + ": pieceSquareTables." + key + " needs 64 values, has " + squares.length());
+                }
+                int[] table = new int[64];
+                for (int sq = 0; sq < 64; sq++) {
+                    table[sq] = squares.getInt(sq);
+                }
+                pieceSquareTables.put(key, table);
+            }
+            profile.pieceSquareTables = pieceSquareTables;
+        }
+
         profile.capturePrioritization = toList(json.getJSONArray("capturePrioritization"));
         profile.pawnBehavior = toList(json.getJSONArray("pawnBehavior"));
         profile.forcedMoveStrategy = toList(json.getJSONArray("forcedMoveStrategy"));
         profile.wildCard = json.getString("wildCard");
+        profile.threads = json.optInt("threads", 0);
+        profile.rootSplit = json.optBoolean("rootSplit", false);
+        profile.solvePieces = json.optInt("solvePieces", 0);
+        profile.bookMode = json.optString("bookMode", "weighted");
+        profile.compile();
 
         return profile;
     }
@@ -0,0 +1,247 @@
+package com.giveawaychess;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// A BotProfile turned into primitives once, when it is loaded: piece values in an int[] by PieceType
+// ordinal, the strategy choices as bit flags and the wild card as an enum. BotLogic evaluates profile
+// bots through this, so the search never builds or compares a string. Instances are immutable.
+//
+// The profile's rules are also built into one MoveRule per profile: a tree of small lambdas holding
+// only the rules the profile chose, each with its constants captured. A rule the profile did not pick
+// costs nothing, not even a flag test. The piece values and piece-square tables also come as tables by
+// piece index for Position.setWeights, so searches read both sums off the position.
+public final class CompiledProfile {
+    // A profile's adjustment to the score of a root move just played on the search position; lower is
+    // better for the bot
+    @FunctionalInterface
+    interface MoveRule {
+        int score(Search search, Color color, int move, int turnNumber);
+    }
+
+    public enum WildCard {
+        NONE(""),
+        RANDOMIZER("Randomizer"),
+        NEWBIE("Newbie"),
+        SHORTENED_LOOKAHEAD("Shortened Lookahead"),
+        SKIP_EVERY_5TH_TURN("Skip Every 5th Turn"),
+        NO_QUEEN_MOVES("No Queen Moves"),
+        TWO_SECOND_DECISION_LIMIT("Two-Second Decision Limit");
+
+        private final String label;
+
+        WildCard(String label) {
+            this.label = label;
+        }
+
+        // The name profiles and the UI use
+        public String label() {
+            return label;
+        }
+
+        // NONE for null or an unknown name
+        public static WildCard fromLabel(String label) {
+            for (WildCard wildCard : values()) {
+                if (wildCard.label.equals(label)) {
+                    return wildCard;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    // Capture prioritization
+    public static final int PREFER_HIGH_CAPTURES = 1;
+    public static final int CAPTURE_FOR_MOBILITY = 1 << 1;
+    public static final int CAPTURE_ONLY_WHEN_FORCED = 1 << 2;
+    // Pawn behavior
+    public static final int PUSH_PAWNS_EARLY = 1 << 3;
+    public static final int DELAY_PAWNS = 1 << 4;
+    public static final int PROMOTE_PAWNS = 1 << 5;
+    // Forced move strategy
+    public static final int REDUCE_MATERIAL = 1 << 6;
+    public static final int POSITIONAL = 1 << 7;
+    public static final int CREATE_FORCED_MOVES = 1 << 8;
+
+    // Profile text of each rule, by bit
+    private static final String[] RULE_LABELS = {
+        "Prefer capturing higher-valued pieces",
+        "Prefer capturing to maximize mobility",
+        "Capture only when forced",
+        "Prefer pushing pawns early",
+        "Delay pawn moves for later",
+        "Prioritize promoting pawns",
+        "Find the move that reduces material fastest",
+        "Maximize positional advantage even when forced",
+        "Try to create more forced moves for the opponent"
+    };
+    private static final int[] DEFAULT_VALUES = Arrays.copyOf(Position.DEFAULT_PIECE_WEIGHTS, 6); // by PieceType ordinal
+    private static final int EARLY_TURNS = 10;  // the pawn rules look at the first turns only
+    private static final MoveRule NO_RULES = (search, color, move, turnNumber) -> 0;
+
+    // The built-in bot types: default piece values, no rules, no wild card
+    public static final CompiledProfile DEFAULT = new CompiledProfile(DEFAULT_VALUES.clone(), null, 0, WildCard.NONE);
+
+    private final int[] pieceValues;
+    private final int rules;
+    private final WildCard wildCard;
+    private final int[] pieceWeights;  // pieceValues by piece index, both colors
+    private final int[] squareWeights; // piece-square values by piece index * 64 + square, or null
+    private final MoveRule moveRule;
+
+    private CompiledProfile(int[] pieceValues, int[] squareWeights, int rules, WildCard wildCard) {
+        this.pieceValues = pieceValues;
+        this.squareWeights = squareWeights;
+        this.rules = rules;
+        this.wildCard = wildCard;
+        this.pieceWeights = new int[Position.PIECE_KINDS];
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            pieceWeights[piece] = pieceValues[piece % 6];
+        }
+        moveRule = buildMoveRule();
+    }
+
+    // Piece values missing from the profile keep their defaults, and unknown rules are ignored
+    public static CompiledProfile of(BotProfile profile) {
+        int[] values = DEFAULT_VALUES.clone();
+        if (profile.pieceValues != null) {
+            for (PieceType type : Position.TYPES) {
+                Integer value = profile.pieceValues.get(type.name().charAt(0) + type.name().substring(1).toLowerCase());
+                if (value != null) {
+                    values[type.ordinal()] = value;
+                }
+            }
+        }
+        int[] squareWeights = null;
+        if (profile.pieceSquareTables != null && !profile.pieceSquareTables.isEmpty()) {
+            squareWeights = new int[Position.PIECE_KINDS * 64];
+            for (PieceType type : Position.TYPES) {
+                int[] table = profile.pieceSquareTables.get(type.name().charAt(0) + type.name().substring(1).toLowerCase());
+                if (table == null) {
+                    continue;
+                }
+                int white = Position.index(Color.WHITE, type) * 64;
+                int black = Position.index(Color.BLACK, type) * 64;
+                for (int sq = 0; sq < 64; sq++) {
+                    squareWeights[white + sq] = table[sq];
+                    squareWeights[black + (sq ^ 56)] = table[sq];  // the same square seen from Black
+                }
+            }
+        }
+        int rules = flags(profile.capturePrioritization, 0, 3)
+            | flags(profile.pawnBehavior, 3, 6)
+            | flags(profile.forcedMoveStrategy, 6, 9);
+        return new CompiledProfile(values, squareWeights, rules, WildCard.fromLabel(profile.wildCard));
+    }
+
+    // Bits first..last-1 whose label is in 'choices'
+    private static int flags(List<String> choices, int first, int last) {
+        int flags = 0;
+        for (int bit = first; choices != null && bit < last; bit++) {
+            if (choices.contains(RULE_LABELS[bit])) {
+                flags |= 1 << bit;
+            }
+        }
+        return flags;
+    }
+
+    // Only the rules that are set end up in the tree; each group keeps the condition it had in
+    // BotLogic.evaluateCustomMove, and a group with no rules set is left out with its condition
+    private MoveRule buildMoveRule() {
+        int[] values = pieceValues;
+        MoveRule capture = null;
+        if (has(PREFER_HIGH_CAPTURES)) {
+            capture = sum(capture, (search, color, move, turnNumber) ->
+                -values[Position.typeOf(search.position().lastCaptured()).ordinal()] * 3);
+        }
+        // CAPTURE_FOR_MOBILITY adds nothing: the original bot compared the move count with itself, so
+        // the rule never changed a score, and profiles that pick it keep playing as they always have
+        if (has(CAPTURE_ONLY_WHEN_FORCED)) {
+            // discourage voluntary captures
+            capture = sum(capture, (search, color, move, turnNumber) ->
+                MoveGenerator.hasCapture(search.position(), color) ? 0 : 25);
+        }
+
+        MoveRule pawn = null;
+        if (has(PUSH_PAWNS_EARLY)) {
+            pawn = sum(pawn, (search, color, move, turnNumber) -> turnNumber < EARLY_TURNS
+                ? -Math.abs(Bitboards.row(MoveGenerator.to(move)) - Bitboards.row(MoveGenerator.from(move))) * 2
+                : 0);
+        }
+        if (has(DELAY_PAWNS)) {
+            pawn = sum(pawn, (search, color, move, turnNumber) -> turnNumber < EARLY_TURNS ? 10 : 0);
+        }
+        if (has(PROMOTE_PAWNS)) {
+            pawn = sum(pawn, (search, color, move, turnNumber) ->
+                Bitboards.row(MoveGenerator.to(move)) == (color == Color.WHITE ? 0 : 7) ? -30 : 0);
+        }
+
+        MoveRule forced = null;
+        if (has(REDUCE_MATERIAL)) {
+            forced = (search, color, move, turnNumber) -> -search.position().material(color);
+        } else if (has(CREATE_FORCED_MOVES)) {
+            forced = (search, color, move, turnNumber) -> -(32 - search.countMoves(color.opposite()));
+        }
+
+        MoveRule rule = null;
+        if (capture != null) {
+            MoveRule captureRules = capture;
+            rule = sum(rule, (search, color, move, turnNumber) ->
+                search.position().lastCaptured() != Position.EMPTY
+                    ? captureRules.score(search, color, move, turnNumber) : 0);
+        }
+        if (pawn != null) {
+            MoveRule pawnRules = pawn;
+            rule = sum(rule, (search, color, move, turnNumber) ->
+                Position.typeOf(search.position().lastMoved()) == PieceType.PAWN
+                    ? pawnRules.score(search, color, move, turnNumber) : 0);
+        }
+        if (forced != null) {
+            MoveRule forcedRule = forced;
+            rule = sum(rule, (search, color, move, turnNumber) -> search.countMoves(color) == 1
+                ? forcedRule.score(search, color, move, turnNumber) : 0);
+        }
+        return rule != null ? rule : NO_RULES;
+    }
+
+    private static MoveRule sum(MoveRule first, MoveRule second) {
+        if (first == null) {
+            return second;
+        }
+        return (search, color, move, turnNumber) ->
+            first.score(search, color, move, turnNumber)
+                + second.score(search, color, move, turnNumber);
+    }
+
+    // The capture, pawn and forced-move rules for 'move', just played by 'color' on the search position
+    public int scoreMove(Search search, Color color, int move, int turnNumber) {
+        return moveRule.score(search, color, move, turnNumber);
+    }
+
+    // Piece values by piece index for Position.setWeights; shared, so callers must not change it
+    int[] pieceWeights() {
+        return pieceWeights;
+    }
+
+    // Piece-square values by piece index * 64 + square for Position.setWeights, or null when the
+    // profile has none; shared like pieceWeights()
+    int[] squareWeights() {
+        return squareWeights;
+    }
+
+    public int pieceValue(PieceType type) {
+        return pieceValues[type.ordinal()];
+    }
+
+    // True when the profile chose 'rule' (one of the flag constants)
+    public boolean has(int rule) {
+        return (rules & rule) != 0;
+    }
+
+    public WildCard wildCard() {
+        return wildCard;
+    }
+}
@@ -0,0 +1,10 @@
+package com.giveawaychess;
+
+// Callbacks from ChessBoard to whatever is showing the game. They run on the thread that played the
+// move, so a Swing implementation has to hand its work to the event dispatch thread itself.
+public interface GameListener {
+    void boardChanged(Piece[][] board);
+
+    // 'winner' is the side that ran out of moves or pieces, which wins in antichess
+    void gameWon(Piece.Color winner);
+}
@@ -21,6 +21,10 @@ public class GameManager {
         return currentPlayer;
     }
 
+    public Player getPlayer(Piece.Color color) {
+        return (color == Piece.Color.WHITE) ? whitePlayer : blackPlayer;
+    }
+
     public void setCurrentPlayer(Piece.Color color) {
         currentPlayer = (color == Piece.Color.WHITE) ? whitePlayer : blackPlayer;
     }
@@ -1,49 +1,43 @@
 package com.giveawaychess;
 
+// Row/column view of a packed move (see MoveGenerator) for the UI and the move history.
+// The search works on the packed ints directly and only builds a Move for the move it picks.
 public class Move {
-    int startRow;
-    int startCol;
-    int endRow;
-    int endCol;
-    Piece movedPiece;
+    private int code;
+    private final Piece movedPiece;
     private Piece capturedPiece; // Store the piece that was captured
-    private boolean promotion;
-
-    private boolean wasEnPassant = false;
 
     public Move(int startRow, int startCol, int endRow, int endCol, Piece movedPiece) {
-        this.startRow = startRow;
-        this.startCol = startCol;
-        this.endRow = endRow;
-        this.endCol = endCol;
+        this(MoveGenerator.encode(Bitboards.square(startRow, startCol), Bitboards.square(endRow, endCol)), movedPiece);
+    }
+
+    public Move(int code, Piece movedPiece) {
+        this.code = code;
         this.movedPiece = movedPiece;
-        this.capturedPiece = capturedPiece;
-        this.promotion = promotion;
+    }
+
+    public int getCode() {
+        return code;
     }
 
     public boolean isPawnMove() {
-        if (movedPiece instanceof Piece) {
-            if (movedPiece.getType() == Piece.PieceType.PAWN) {
-                return true;
-            }
-        }
-            return false;
+        return movedPiece != null && movedPiece.getType() == Piece.PieceType.PAWN;
     }
 
     public int getFromRow() {
-        return startRow;
+        return Bitboards.row(MoveGenerator.from(code));
     }
 
     public int getFromCol() {
-        return startCol;
+        return Bitboards.col(MoveGenerator.from(code));
     }
 
     public int getToRow() {
-        return endRow;
+        return Bitboards.row(MoveGenerator.to(code));
     }
 
     public int getToCol() {
-        return endCol;
+        return Bitboards.col(MoveGenerator.to(code));
     }
 
     public Piece getMovedPiece() {
@@ -55,19 +49,29 @@ public class Move {
     }
 
     public boolean wasPromotion() {
-        return promotion;
+        return MoveGenerator.promotion(code) != null;
+    }
+
+    // Piece the pawn became; may be chosen before the move is played
+    public Piece.PieceType getPromotionType() {
+        return MoveGenerator.promotion(code);
+    }
+
+    public void setPromotion(Piece.PieceType promotionType) {
+        code = MoveGenerator.withPromotion(code, promotionType);
     }
 
     public boolean wasEnPassant() {
-        return wasEnPassant;
+        return MoveGenerator.isEnPassant(code);
     }
 
     public void setCapturedPiece(Piece capturedPiece) {
         this.capturedPiece = capturedPiece;
-    }    
+        code = capturedPiece != null ? code | MoveGenerator.CAPTURE : code & ~MoveGenerator.CAPTURE;
+    }
 
     public void setWasEnPassant(boolean wasEnPassant) {
-        this.wasEnPassant = wasEnPassant;
+        code = wasEnPassant ? code | MoveGenerator.EN_PASSANT : code & ~MoveGenerator.EN_PASSANT;
     }
-    
-}
\ No newline at end of file
+
+}
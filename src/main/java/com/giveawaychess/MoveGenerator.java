@@ -0,0 +1,325 @@
+package com.giveawaychess;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Table-driven move generation on a Position. Moves are packed into an int and written into
+// caller-owned arrays (usually a MoveList), so generating a side's moves allocates nothing.
+//
+// Move layout: bits 0-5 from square, 6-11 to square, 12-14 promotion piece (PieceType ordinal + 1,
+// 0 = none), then the CAPTURE, EN_PASSANT and DOUBLE_PUSH flags. Generated pawn moves to the last row
+// come once per promotion piece. Position.makeMove only needs from, to and promotion, so a move built
+// by hand from two squares is still playable.
+public final class MoveGenerator {
+    // Antichess positions stay far below this even with every pawn promotion spelled out
+    public static final int MAX_MOVES = 256;
+    public static final int NO_MOVE = 0; // a1 to a1, never generated
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int DOUBLE_PUSH = 1 << 17;
+    private static final int PROMOTION_MASK = 7 << 12;
+    private static final int SQUARES_MASK = 0xFFF;
+
+    // Ordinals of the promotion choices, queen first so it is the default pick among equals
+    private static final int[] PROMOTION_ORDER = {
+        PieceType.QUEEN.ordinal(), PieceType.ROOK.ordinal(), PieceType.BISHOP.ordinal(),
+        PieceType.KNIGHT.ordinal(), PieceType.KING.ordinal()
+    };
+    private static final int PROMOTION_PIECES = PROMOTION_ORDER.length;
+
+    private MoveGenerator() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    // 'promotion' may be null for the default queen promotion
+    public static int encode(int from, int to, PieceType promotion) {
+        return encode(from, to) | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    // Null when the move does not name a promotion piece
+    public static PieceType promotion(int move) {
+        int type = (move >>> 12) & 7;
+        return type == 0 ? null : Position.TYPES[type - 1];
+    }
+
+    // Algebraic name of a square, e.g. "e4"
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.col(square)) + (Bitboards.row(square) + 1);
+    }
+
+    // Coordinate notation, e.g. "e2e4" or "a7a8k"
+    public static String toString(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        PieceType promotion = promotion(move);
+        return promotion == null ? text : text + "kqrbnp".charAt(promotion.ordinal());
+    }
+
+    public static int withPromotion(int move, PieceType promotion) {
+        return (move & ~PROMOTION_MASK) | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12);
+    }
+
+    // Just the from and to squares, for comparing moves regardless of flags and promotion
+    public static int squares(int move) {
+        return move & SQUARES_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    // Squares the piece standing on 'square' could move to, ignoring mandatory capture
+    public static long targets(Position pos, int square) {
+        int piece = pos.pieceAt(square);
+        if (piece == Position.EMPTY) {
+            return 0L;
+        }
+        Color color = Position.colorOf(piece);
+        long own = pos.occupancy(color);
+        long occupied = pos.occupied();
+        switch (Position.typeOf(piece)) {
+            case KING:
+                return Attacks.KING[square] & ~own;
+            case QUEEN:
+                return Attacks.queen(square, occupied) & ~own;
+            case ROOK:
+                return Attacks.rook(square, occupied) & ~own;
+            case BISHOP:
+                return Attacks.bishop(square, occupied) & ~own;
+            case KNIGHT:
+                return Attacks.KNIGHT[square] & ~own;
+            default:
+                return pawnPushes(pos, color, square) | pawnCaptures(pos, color, square);
+        }
+    }
+
+    // Every pseudo-legal move for one side, generated piece type by piece type in a single pass
+    public static int generate(Position pos, Color side, int[] moves) {
+        long enemy = pos.occupancy(side.opposite());
+        long empty = ~pos.occupied();
+        long occupied = pos.occupied();
+        int count = 0;
+
+        for (long bb = pos.pieces(side, PieceType.KNIGHT); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emit(from, Attacks.KNIGHT[from], enemy, empty, moves, count);
+        }
+        for (long bb = pos.pieces(side, PieceType.BISHOP); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emit(from, Attacks.bishop(from, occupied), enemy, empty, moves, count);
+        }
+        for (long bb = pos.pieces(side, PieceType.ROOK); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emit(from, Attacks.rook(from, occupied), enemy, empty, moves, count);
+        }
+        for (long bb = pos.pieces(side, PieceType.QUEEN); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emit(from, Attacks.queen(from, occupied), enemy, empty, moves, count);
+        }
+        for (long bb = pos.pieces(side, PieceType.KING); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emit(from, Attacks.KING[from], enemy, empty, moves, count);
+        }
+        for (long bb = pos.pieces(side, PieceType.PAWN); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            count = emitPawn(pos, from, pawnCaptures(pos, side, from), CAPTURE, moves, count);
+            count = emitPawn(pos, from, pawnPushes(pos, side, from), 0, moves, count);
+        }
+        return count;
+    }
+
+    // Antichess legal moves: captures when any exist, otherwise the quiet moves. Captures fill the
+    // array from the front and quiet moves from the back during a single walk over the pieces, so the
+    // capture check never needs a separate pass. Returns the number of moves left at the front.
+    public static int generateLegal(Position pos, Color side, int[] moves) {
+        long enemy = pos.occupancy(side.opposite());
+        long empty = ~pos.occupied();
+        long occupied = pos.occupied();
+        int captures = 0;
+        int quietEnd = moves.length;
+
+        for (long bb = pos.occupancy(side); bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            long attacks;
+            switch (Position.typeOf(pos.pieceAt(from))) {
+                case KING:
+                    attacks = Attacks.KING[from];
+                    break;
+                case QUEEN:
+                    attacks = Attacks.queen(from, occupied);
+                    break;
+                case ROOK:
+                    attacks = Attacks.rook(from, occupied);
+                    break;
+                case BISHOP:
+                    attacks = Attacks.bishop(from, occupied);
+                    break;
+                case KNIGHT:
+                    attacks = Attacks.KNIGHT[from];
+                    break;
+                default:
+                    captures = emitPawn(pos, from, pawnCaptures(pos, side, from), CAPTURE, moves, captures);
+                    if (captures == 0) {
+                        quietEnd = emitPawnBack(pos, from, pawnPushes(pos, side, from), moves, quietEnd);
+                    }
+                    continue;
+            }
+            for (long capture = attacks & enemy; capture != 0; capture &= capture - 1) {
+                moves[captures++] = from | (Long.numberOfTrailingZeros(capture) << 6) | CAPTURE;
+            }
+            if (captures == 0) {
+                // Quiet moves only matter until the first capture turns up
+                for (long quiet = attacks & empty; quiet != 0; quiet &= quiet - 1) {
+                    moves[--quietEnd] = from | (Long.numberOfTrailingZeros(quiet) << 6);
+                }
+            }
+        }
+        if (captures > 0) {
+            return captures;
+        }
+        int count = moves.length - quietEnd;
+        System.arraycopy(moves, quietEnd, moves, 0, count);
+        return count;
+    }
+
+    public static boolean hasCapture(Position pos, Color side) {
+        for (long bb = pos.occupancy(side); bb != 0; bb &= bb - 1) {
+            if (captureTargets(pos, Long.numberOfTrailingZeros(bb)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True when 'side' has any legal move; under the forced capture rule that is any pseudo-legal move
+    public static boolean hasMove(Position pos, Color side) {
+        for (long bb = pos.occupancy(side); bb != 0; bb &= bb - 1) {
+            if (targets(pos, Long.numberOfTrailingZeros(bb)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Targets that capture something: enemy-occupied squares, plus the en passant square for pawns
+    public static long captureTargets(Position pos, int square) {
+        int piece = pos.pieceAt(square);
+        if (piece == Position.EMPTY) {
+            return 0L;
+        }
+        Color color = Position.colorOf(piece);
+        if (Position.typeOf(piece) == PieceType.PAWN) {
+            return pawnCaptures(pos, color, square);
+        }
+        return targets(pos, square) & pos.occupancy(color.opposite());
+    }
+
+    static long pawnPushes(Position pos, Color color, int square) {
+        long empty = ~pos.occupied();
+        int row = Bitboards.row(square);
+        if (row == (color == Color.WHITE ? 7 : 0)) {
+            return 0L; // only reachable in hand-built positions; real pawns promote on arrival
+        }
+        if (color == Color.WHITE) {
+            long single = (1L << (square + 8)) & empty;
+            if (single != 0 && row == 1 && pos.isDoublePushAllowed(color)) {
+                return single | ((1L << (square + 16)) & empty);
+            }
+            return single;
+        }
+        long single = (1L << (square - 8)) & empty;
+        if (single != 0 && row == 6 && pos.isDoublePushAllowed(color)) {
+            return single | ((1L << (square - 16)) & empty);
+        }
+        return single;
+    }
+
+    static long pawnCaptures(Position pos, Color color, int square) {
+        return Attacks.PAWN[color.ordinal()][square] & (pos.occupancy(color.opposite()) | enPassantTarget(pos, color));
+    }
+
+    // The en passant square is only capturable by the side that did not make the two-step push
+    static long enPassantTarget(Position pos, Color color) {
+        int ep = pos.getEnPassantSquare();
+        if (ep == Position.NO_SQUARE) {
+            return 0L;
+        }
+        int captureRow = (color == Color.WHITE) ? 5 : 2;
+        return Bitboards.row(ep) == captureRow ? 1L << ep : 0L;
+    }
+
+    private static int emit(int from, long targets, long enemy, long empty, int[] moves, int count) {
+        for (long bb = targets & enemy; bb != 0; bb &= bb - 1) {
+            moves[count++] = from | (Long.numberOfTrailingZeros(bb) << 6) | CAPTURE;
+        }
+        for (long bb = targets & empty; bb != 0; bb &= bb - 1) {
+            moves[count++] = from | (Long.numberOfTrailingZeros(bb) << 6);
+        }
+        return count;
+    }
+
+    // Pawn moves carry their own flags and are written once per promotion piece on the last row
+    private static int emitPawn(Position pos, int from, long targets, int flags, int[] moves, int count) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int move = pawnMove(pos, from, to, flags);
+            if (isLastRow(to)) {
+                for (int type = 0; type < PROMOTION_PIECES; type++) {
+                    moves[count++] = move | ((PROMOTION_ORDER[type] + 1) << 12);
+                }
+            } else {
+                moves[count++] = move;
+            }
+        }
+        return count;
+    }
+
+    // Same as emitPawn for quiet pushes, filling 'moves' downwards from 'end'
+    private static int emitPawnBack(Position pos, int from, long targets, int[] moves, int end) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int move = pawnMove(pos, from, to, 0);
+            if (isLastRow(to)) {
+                for (int type = 0; type < PROMOTION_PIECES; type++) {
+                    moves[--end] = move | ((PROMOTION_ORDER[type] + 1) << 12);
+                }
+            } else {
+                moves[--end] = move;
+            }
+        }
+        return end;
+    }
+
+    private static int pawnMove(Position pos, int from, int to, int flags) {
+        int move = from | (to << 6) | flags;
+        if (to == pos.getEnPassantSquare() && (flags & CAPTURE) != 0) {
+            move |= EN_PASSANT;
+        } else if (Math.abs(to - from) == 16) {
+            move |= DOUBLE_PUSH;
+        }
+        return move;
+    }
+
+    private static boolean isLastRow(int square) {
+        return square < 8 || square >= 56;
+    }
+}
@@ -0,0 +1,97 @@
+package com.giveawaychess;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// A reusable buffer of packed moves (see MoveGenerator). Searches keep one per ply and refill it at
+// every node, so move generation and iteration never allocate.
+public final class MoveList {
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES]; // ordering scores, see pickBest
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    // Swaps 'move' to the front so it is searched first; does nothing if it is not in the list
+    public void moveToFront(int move) {
+        if (move == MoveGenerator.NO_MOVE) {
+            return;
+        }
+        for (int i = 1; i < size; i++) {
+            if (moves[i] == move) {
+                moves[i] = moves[0];
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    // One step of a selection sort: brings the highest-scored move at or after 'index' to 'index' and
+    // returns it. Searches call this as they go, so the moves after a cutoff are never sorted at all.
+    public int pickBest(int index) {
+        int best = index;
+        for (int i = index + 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves[index];
+    }
+
+    // Replaces the contents with the antichess legal moves for 'side'; returns the count
+    public int generateLegal(Position pos, Color side) {
+        size = MoveGenerator.generateLegal(pos, side, moves);
+        return size;
+    }
+
+    // Drops the moves made by pieces of 'type', unless nothing else would be left
+    // ("No Queen Moves" wild card)
+    public void excludePiece(Position pos, PieceType type) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (Position.typeOf(pos.pieceAt(MoveGenerator.from(moves[i]))) != type) {
+                kept++;
+            }
+        }
+        if (kept == 0 || kept == size) {
+            return;
+        }
+        kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (Position.typeOf(pos.pieceAt(MoveGenerator.from(moves[i]))) != type) {
+                moves[kept++] = moves[i];
+            }
+        }
+        size = kept;
+    }
+}
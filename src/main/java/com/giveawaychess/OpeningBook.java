@@ -0,0 +1,141 @@
+package com.giveawaychess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+// Opening book in the spirit of Polyglot: entries keyed by the position's Zobrist hash, sorted by key and
+// found by binary search. OpeningBookBuilder writes the file from self-play; this class maps it read-only
+// with FileChannel.map, so a lookup touches a few pages of the file and copies nothing onto the heap.
+//
+// A file holds an 8-byte header ("GCOB", version, three spare bytes) and then 16-byte entries: the key,
+// the move (from, to and promotion bits of a packed move, no flags) and its weight, which is higher for
+// moves that did better in self-play. Entries with the same key are ordered by weight, highest first.
+public final class OpeningBook {
+    // How a bot picks among the book moves of a position
+    public enum Choice {
+        BEST, WEIGHTED
+    }
+
+    public static final String EXTENSION = ".gcob";
+
+    static final int HEADER = 8;
+    static final int ENTRY = 16;
+    static final byte VERSION = 1;
+    static final byte[] MAGIC = {'G', 'C', 'O', 'B'};
+    static final int MOVE_BITS = 0x7FFF;  // from, to and promotion of a packed move
+    private static volatile OpeningBook defaultBook;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = (buffer.capacity() - HEADER) / ENTRY;
+    }
+
+    // Maps the book in 'file'
+    public static OpeningBook open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (channel.size() < HEADER || buffer.get(i) != MAGIC[i]) {
+                    throw new IllegalStateException(file + " is not an opening book");
+                }
+            }
+            if (buffer.get(4) != VERSION || (channel.size() - HEADER) % ENTRY != 0) {
+                throw new IllegalStateException(file + " has the wrong version or size");
+            }
+            return new OpeningBook(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The book in the file named by the giveawaychess.book system property, or null when there is none
+    public static OpeningBook getDefault() {
+        OpeningBook book = defaultBook;
+        String file = System.getProperty("giveawaychess.book");
+        if (book == null && file != null && Files.isRegularFile(Paths.get(file))) {
+            synchronized (OpeningBook.class) {
+                if (defaultBook == null) {
+                    defaultBook = open(Paths.get(file));
+                }
+                book = defaultBook;
+            }
+        }
+        return book;
+    }
+
+    // Number of entries
+    public int size() {
+        return size;
+    }
+
+    // A book move for the position with hash 'key' that is also in 'legal', the moves the caller may
+    // play there; the best-weighted one or a random one in proportion to weight. NO_MOVE when the book
+    // has nothing playable.
+    public int choose(long key, MoveList legal, Choice choice, Random random) {
+        int first = firstEntry(key);
+        long total = 0;
+        int best = MoveGenerator.NO_MOVE;
+        for (int i = first; i < size && key(i) == key; i++) {
+            int move = legalMove(legal, move(i));
+            if (move == MoveGenerator.NO_MOVE || weight(i) <= 0) {
+                continue;  // a hash collision, or a move the caller's rules do not allow
+            }
+            if (choice == Choice.BEST) {
+                return move;  // entries are sorted by weight
+            }
+            // Weighted reservoir pick: each move replaces the pick so far with its share of the total
+            total += weight(i);
+            if (random.nextLong(total) < weight(i)) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    // Index of the first entry with 'key', or of the first entry after it when there is none
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(int entry) {
+        return buffer.getLong(HEADER + entry * ENTRY);
+    }
+
+    private int move(int entry) {
+        return buffer.getInt(HEADER + entry * ENTRY + 8);
+    }
+
+    private int weight(int entry) {
+        return buffer.getInt(HEADER + entry * ENTRY + 12);
+    }
+
+    // The move of 'legal' a book move stands for, or NO_MOVE
+    private static int legalMove(MoveList legal, int bookMove) {
+        for (int i = 0; i < legal.size(); i++) {
+            if ((legal.get(i) & MOVE_BITS) == bookMove) {
+                return legal.get(i);
+            }
+        }
+        return MoveGenerator.NO_MOVE;
+    }
+}
@@ -0,0 +1,131 @@
+package com.giveawaychess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Builds an OpeningBook from headless self-play. Every game is played by a SWEATY bot for both sides to
+// the end (or MAX_PLIES, which counts as a draw); in the opening plies a random legal move is played
+// instead now and then, so the games spread over more than one line. Each book move gets 2 for every
+// game its side won after playing it, 1 for a draw and 0 for a loss, as Polyglot's weights do, and
+// moves that never scored anything are left out.
+//
+// The random choices are seeded and the bots are deterministic, so the same arguments give the same
+// book. Usage: java -cp target/classes com.giveawaychess.OpeningBookBuilder file [games] [plies] [depth]
+public final class OpeningBookBuilder {
+    private static final int MAX_PLIES = 300;
+    private static final double EXPLORE = 0.25;  // chance of a random move in the book plies
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private final Random random = new Random(SEED);
+    private final int plies;
+    private final int depth;
+    private final int[] results = new int[3];  // white wins, black wins, draws
+
+    private OpeningBookBuilder(int plies, int depth) {
+        this.plies = plies;
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: OpeningBookBuilder file [games] [plies] [depth]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, depth);
+        long start = System.nanoTime();
+        for (int game = 1; game <= games; game++) {
+            builder.playGame();
+            if (game % 50 == 0) {
+                System.out.println(game + " games, " + builder.weights.size() + " positions");
+            }
+        }
+        int entries = builder.write(file);
+        System.out.println(file + ": " + entries + " moves in " + builder.weights.size() + " positions; white won "
+            + builder.results[0] + ", black " + builder.results[1] + ", drawn " + builder.results[2]
+            + ", " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void playGame() {
+        GameManager gameManager = new GameManager();
+        ChessBoard board = new ChessBoard(null, gameManager);
+        board.startGame();
+        BotLogic bot = new BotLogic(board, gameManager, BotLogic.BotType.SWEATY);
+        bot.setBook(null);
+        bot.setSearchLimits(SearchLimits.depth(depth));
+
+        long[] keys = new long[plies];
+        int[] bookMoves = new int[plies];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Piece.Color winner = null;
+        int played = 0;
+        for (; played < MAX_PLIES; played++) {
+            Position pos = board.getPosition();
+            int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+            if (count == 0) {
+                winner = pos.getSideToMove();  // no legal move: the side to move has won
+                break;
+            }
+            int move;
+            if (played < plies && random.nextDouble() < EXPLORE) {
+                move = moves[random.nextInt(count)];
+            } else {
+                move = bot.getMove().getCode();
+            }
+            if (played < plies) {
+                keys[played] = pos.hash();
+                bookMoves[played] = move & OpeningBook.MOVE_BITS;
+            }
+            Piece piece = Piece.of(pos.pieceAt(MoveGenerator.from(move)));
+            if (!board.handleMove(new Move(move, piece), gameManager, true)) {
+                throw new IllegalStateException("illegal move " + MoveGenerator.toString(move) + " in " + pos.toFen());
+            }
+        }
+
+        results[winner == null ? 2 : winner.ordinal()]++;
+        for (int ply = 0; ply < Math.min(played, plies); ply++) {
+            // White moves on even plies
+            Piece.Color mover = (ply & 1) == 0 ? Piece.Color.WHITE : Piece.Color.BLACK;
+            int score = winner == null ? 1 : winner == mover ? 2 : 0;
+            weights.computeIfAbsent(keys[ply], key -> new HashMap<>()).merge(bookMoves[ply], score, Integer::sum);
+        }
+    }
+
+    // Writes the moves with a positive weight, sorted by key and then by weight; returns their count
+    private int write(Path file) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                if (move.getValue() > 0) {
+                    entries.add(new long[] {position.getKey(), move.getKey(), move.getValue()});
+                }
+            }
+        }
+        entries.sort(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> -e[2]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER + entries.size() * OpeningBook.ENTRY);
+        buffer.put(OpeningBook.MAGIC).put(OpeningBook.VERSION).put(new byte[3]);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putInt((int) entry[1]).putInt((int) entry[2]);
+        }
+        Path temp = Paths.get(file + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries.size();
+    }
+}
@@ -0,0 +1,223 @@
+package com.giveawaychess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Antichess perft: counts the leaf nodes of the legal move tree to a fixed depth. Every pawn promotion
+// choice (king included) is a separate move, and a side with no legal moves is a leaf with no
+// children, so counts can be compared with other antichess move generators.
+//
+// Usage: java -cp target/classes com.giveawaychess.Perft [-divide] [-parallel] [-board] depth [fen]
+//        java -cp target/classes com.giveawaychess.Perft -suite [maxDepth]
+// -divide prints the count under each root move, -parallel splits the root moves over a ForkJoinPool,
+// and -board walks the tree through ChessBoard.getLegalMoves/handleMove/undoMove instead of Position,
+// to check the path the UI and the bots play moves through. -suite runs the reference positions
+// below and exits with status 1 on any wrong count.
+public final class Perft {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    // Reference positions with their counts for depth 1, 2, ...; deeper runs are reported but not checked
+    static final Object[][] SUITE = {
+        {START_FEN, new long[] {20, 400, 8067, 153299, 2732672}},
+        // Black to move after 1.e3: no capture is available, so nothing is forced yet
+        {"rnbqkbnr/pppppppp/8/8/8/4P3/PPPP1PPP/RNBQKBNR b - - 0 1", new long[] {20, 484, 9631, 179148, 3139671}},
+        // 1.e3 b5: White's only legal move is Bxb5
+        {"rnbqkbnr/p1pppppp/8/1p6/8/4P3/PPPP1PPP/RNBQKBNR w - - 0 2", new long[] {1, 20, 24, 74, 1774}},
+        // En passant is a capture and therefore mandatory
+        {"rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b - e3 0 3", new long[] {1, 2, 2, 5, 130}},
+        // Capturing promotions to all five pieces, forced for both sides
+        {"1n5k/P6p/8/8/8/8/p6P/1N5K w - - 0 1", new long[] {5, 25, 150, 832, 8110}},
+        // The king must take Black's last piece, after which Black has no moves and has won
+        {"8/8/8/8/8/8/p7/K7 w - - 0 1", new long[] {1, 0, 0, 0, 0}},
+    };
+
+    private final int[][] buffers = new int[Search.MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    private Perft() {
+    }
+
+    // Leaf count of 'pos' to 'depth' plies; the position is left as it was
+    public static long perft(Position pos, int depth) {
+        return new Perft().count(pos, depth);
+    }
+
+    // Leaf count under each root move, in generation order
+    public static Map<String, Long> divide(Position pos, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        Perft perft = new Perft();
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            counts.put(MoveGenerator.toString(moves[i]), depth <= 1 ? 1L : perft.count(pos, depth - 1));
+            pos.unmakeMove();
+        }
+        return counts;
+    }
+
+    // Same count as perft(), with each root move searched as its own task on 'pool'
+    public static long parallel(Position pos, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(pos, depth);
+        }
+        return pool.invoke(new RootTask(pos, depth));
+    }
+
+    // Same count as perft(), walked through the ChessBoard game API on the board's current position
+    public static long perft(ChessBoard board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        List<Move> moves = board.getLegalMoves(board.getCurrentPlayer());
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (Move move : moves) {
+            if (!board.handleMove(move, null, true)) {
+                throw new IllegalStateException("ChessBoard rejected its own legal move " + MoveGenerator.toString(move.getCode()));
+            }
+            nodes += perft(board, depth - 1);
+            board.undoMove(move);
+        }
+        return nodes;
+    }
+
+    private long count(Position pos, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            nodes += count(pos, depth - 1);
+            pos.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static final class RootTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Position pos;
+        private final int depth;
+        private final int move; // NO_MOVE for the task that splits the root
+
+        RootTask(Position pos, int depth) {
+            this(pos, depth, MoveGenerator.NO_MOVE);
+        }
+
+        private RootTask(Position pos, int depth, int move) {
+            this.pos = pos;
+            this.depth = depth;
+            this.move = move;
+        }
+
+        @Override
+        protected Long compute() {
+            if (move != MoveGenerator.NO_MOVE) {
+                Position child = pos.copy();
+                child.makeMove(move);
+                return perft(child, depth - 1);
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+            List<RootTask> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(new RootTask(pos, depth, moves[i]));
+            }
+            long nodes = 0;
+            for (RootTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean divide = false;
+        boolean parallel = false;
+        boolean board = false;
+        boolean suite = false;
+        List<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            switch (arg) {
+                case "-divide" -> divide = true;
+                case "-parallel" -> parallel = true;
+                case "-board" -> board = true;
+                case "-suite" -> suite = true;
+                default -> rest.add(arg);
+            }
+        }
+
+        if (suite) {
+            int maxDepth = rest.isEmpty() ? 5 : Integer.parseInt(rest.get(0));
+            System.exit(runSuite(maxDepth) ? 0 : 1);
+        }
+
+        int depth = rest.isEmpty() ? 5 : Integer.parseInt(rest.get(0));
+        String fen = rest.size() > 1 ? String.join(" ", rest.subList(1, rest.size())) : START_FEN;
+        Position pos = Position.fromFen(fen);
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<String, Long> entry : divide(pos, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else if (board) {
+            nodes = perft(toBoard(pos), depth);
+        } else if (parallel) {
+            nodes = parallel(pos, depth, ForkJoinPool.commonPool());
+        } else {
+            nodes = perft(pos, depth);
+        }
+        report("perft(" + depth + ")", nodes, System.nanoTime() - start);
+    }
+
+    private static boolean runSuite(int maxDepth) {
+        boolean ok = true;
+        for (Object[] entry : SUITE) {
+            String fen = (String) entry[0];
+            long[] expected = (long[]) entry[1];
+            System.out.println(fen);
+            Position pos = Position.fromFen(fen);
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(pos, depth);
+                long elapsed = System.nanoTime() - start;
+                if (depth <= expected.length && nodes != expected[depth - 1]) {
+                    System.out.println("  perft(" + depth + ") = " + nodes + ", expected " + expected[depth - 1]);
+                    ok = false;
+                } else {
+                    report("  perft(" + depth + ")", nodes, elapsed);
+                }
+            }
+        }
+        System.out.println(ok ? "All counts match" : "Counts differ");
+        return ok;
+    }
+
+    // A ChessBoard playing from 'pos' with no UI and no players attached
+    private static ChessBoard toBoard(Position pos) {
+        ChessBoard board = new ChessBoard();
+        board.setPosition(pos);
+        return board;
+    }
+
+    private static void report(String label, long nodes, long nanos) {
+        long millis = Math.max(1, nanos / 1_000_000);
+        System.out.println(label + " = " + nodes + " in " + millis + " ms, " + (nodes * 1000 / millis) + " nodes/s");
+    }
+
+}
@@ -3,8 +3,9 @@ package com.giveawaychess;
 import java.util.ArrayList;
 import java.util.List;
 
-public class Piece {
-    private ChessBoard chessBoard;
+// One immutable instance per (type, color), shared by every board and thread. Rules that need to
+// know about a game (en passant, the Newbie wild card) take the ChessBoard as a parameter.
+public final class Piece {
     // Enum for piece type
     public enum PieceType {
         KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN;
@@ -19,15 +20,45 @@ public class Piece {
         }
     }
 
-    private PieceType type;
-    private Color color;
+    private final PieceType type;
+    private final Color color;
 
-    // Constructor for creating a piece
-    public Piece(PieceType type, Color color) {
+    // Same layout as Position piece indexes: color * 6 + type
+    private static final Piece[] INSTANCES = new Piece[Position.PIECE_KINDS];
+
+    static {
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                INSTANCES[Position.index(color, type)] = new Piece(type, color);
+            }
+        }
+    }
+
+    // Step and ray offsets, shared by every piece instead of being rebuilt on each call
+    private static final int[] KING_ROW_OFFSETS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] KING_COL_OFFSETS = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] ROOK_ROW_OFFSETS = {0, 0, 1, -1};
+    private static final int[] ROOK_COL_OFFSETS = {1, -1, 0, 0};
+    private static final int[] BISHOP_ROW_OFFSETS = {1, 1, -1, -1};
+    private static final int[] BISHOP_COL_OFFSETS = {1, -1, 1, -1};
+    private static final int[] KNIGHT_ROW_OFFSETS = {-2, -2, -1, -1, 1, 1, 2, 2};
+    private static final int[] KNIGHT_COL_OFFSETS = {-1, 1, -2, 2, -2, 2, -1, 1};
+    private static final int[] PAWN_CAPTURE_OFFSETS = {-1, 1};
+
+    private Piece(PieceType type, Color color) {
         this.type = type;
         this.color = color;
     }
 
+    public static Piece of(PieceType type, Color color) {
+        return INSTANCES[Position.index(color, type)];
+    }
+
+    // The shared instance for a Position piece index (Position.EMPTY gives null)
+    public static Piece of(int index) {
+        return index == Position.EMPTY ? null : INSTANCES[index];
+    }
+
     // Getters for type and color
     public PieceType getType() {
         return type;
@@ -63,6 +94,11 @@ public class Piece {
 
     // Method to check if the piece can move from (startRow, startCol) to (endRow, endCol)
     public boolean canMove(int startRow, int startCol, int endRow, int endCol, Piece[][] board) {
+        return canMove(startRow, startCol, endRow, endCol, board, null);
+    }
+
+    // 'chessBoard' supplies game context for pawns and may be null
+    public boolean canMove(int startRow, int startCol, int endRow, int endCol, Piece[][] board, ChessBoard chessBoard) {
         switch (type) {
             case KING:
                 return canMoveKing(startRow, startCol, endRow, endCol);
@@ -75,7 +111,7 @@ public class Piece {
             case KNIGHT:
                 return canMoveKnight(startRow, startCol, endRow, endCol);
             case PAWN:
-                return canMovePawn(startRow, startCol, endRow, endCol, board);
+                return canMovePawn(startRow, startCol, endRow, endCol, board, chessBoard);
             default:
                 return false;
         }
@@ -147,6 +183,10 @@ public class Piece {
     }
 
     public boolean canMovePawn(int startRow, int startCol, int endRow, int endCol, Piece[][] board) {
+        return canMovePawn(startRow, startCol, endRow, endCol, board, null);
+    }
+
+    public boolean canMovePawn(int startRow, int startCol, int endRow, int endCol, Piece[][] board, ChessBoard chessBoard) {
         if (endRow < 0 || endRow >= board.length) {
             // System.out.println("Invalid move: target row is out of bounds.");
             return false;
@@ -221,8 +261,8 @@ public List<Move> generatePotentialMoves(int row, int col, Piece[][] board) {
     return potentialMoves;
 }
 private void generateKingMoves(int row, int col, Piece[][] board, List<Move> potentialMoves) {
-    int[] rowOffsets = {-1, -1, -1, 0, 0, 1, 1, 1};
-    int[] colOffsets = {-1, 0, 1, -1, 1, -1, 0, 1};
+    int[] rowOffsets = KING_ROW_OFFSETS;
+    int[] colOffsets = KING_COL_OFFSETS;
     
     for (int i = 0; i < rowOffsets.length; i++) {
         int newRow = row + rowOffsets[i];
@@ -241,8 +281,8 @@ private void generateQueenMoves(int row, int col, Piece[][] board, List<Move> po
 }
 
 private void generateRookMoves(int row, int col, Piece[][] board, List<Move> potentialMoves) {
-    int[] rowOffsets = {0, 0, 1, -1};
-    int[] colOffsets = {1, -1, 0, 0};
+    int[] rowOffsets = ROOK_ROW_OFFSETS;
+    int[] colOffsets = ROOK_COL_OFFSETS;
     
     for (int i = 0; i < rowOffsets.length; i++) {
         int newRow = row;
@@ -266,8 +306,8 @@ private void generateRookMoves(int row, int col, Piece[][] board, List<Move> pot
 }
 
 private void generateBishopMoves(int row, int col, Piece[][] board, List<Move> potentialMoves) {
-    int[] rowOffsets = {1, 1, -1, -1};
-    int[] colOffsets = {1, -1, 1, -1};
+    int[] rowOffsets = BISHOP_ROW_OFFSETS;
+    int[] colOffsets = BISHOP_COL_OFFSETS;
     
     for (int i = 0; i < rowOffsets.length; i++) {
         int newRow = row;
@@ -291,8 +331,8 @@ private void generateBishopMoves(int row, int col, Piece[][] board, List<Move> p
 }
 
 private void generateKnightMoves(int row, int col, Piece[][] board, List<Move> potentialMoves) {
-    int[] rowOffsets = {-2, -2, -1, -1, 1, 1, 2, 2};
-    int[] colOffsets = {-1, 1, -2, 2, -2, 2, -1, 1};
+    int[] rowOffsets = KNIGHT_ROW_OFFSETS;
+    int[] colOffsets = KNIGHT_COL_OFFSETS;
     
     for (int i = 0; i < rowOffsets.length; i++) {
         int newRow = row + rowOffsets[i];
@@ -322,7 +362,7 @@ private void generatePawnMoves(int row, int col, Piece[][] board, List<Move> pot
     }
     
     // Capture diagonally
-    for (int offset : new int[]{-1, 1}) {
+    for (int offset : PAWN_CAPTURE_OFFSETS) {
         int captureCol = col + offset;
         if (isWithinBounds(forwardRow, captureCol) && board[forwardRow][captureCol] != null 
             && board[forwardRow][captureCol].getColor() != this.color) {
@@ -337,8 +377,4 @@ private boolean isWithinBounds(int row, int col) {
     return row >= 0 && row < 8 && col >= 0 && col < 8;
 }
 
-public void setChessBoard(ChessBoard board) {
-    this.chessBoard = board;
-}
-
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.giveawaychess;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import javax.swing.Timer;
@@ -82,29 +81,7 @@ public class Player {
             throw new IllegalStateException("ChessBoard is not initialized for the player.");
         }
 
-        List<Move> legalMoves = new ArrayList<>();
-        
-        // Iterate through the board to find all pieces of the current player
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-
-                Piece piece = chessBoard.getPieceAt(row, col); // Assuming `chessBoard` has this method
-                if (piece != null && piece.getColor() == this.color) {
-                    // Get all potential moves for this piece and validate them
-                    List<Move> candidateMoves = piece.generatePotentialMoves(row, col, chessBoard.getBoard());
-                    for (Move move : candidateMoves) {
-                        int startRow = move.getFromRow();
-                        int startCol = move.getFromCol();
-                        int endRow = move.getToRow();
-                        int endCol = move.getToCol();
-                        if (chessBoard.isValidMove(startRow, startCol, endRow, endCol)) { // Efficient validation for each move
-                            legalMoves.add(move);
-                        }
-                    }
-                }
-            }
-        }
-        return legalMoves;
+        return chessBoard.getLegalMoves(this.color);
     }
     
 
@@ -202,5 +179,12 @@ public class Player {
     public BotLogic.BotType getBotType() {
         return (botLogic != null) ? botLogic.botType : null;
     }    
+
+    // Releases the bot's search threads once the game is over
+    public void close() {
+        if (botLogic != null) {
+            botLogic.close();
+        }
+    }
     
 }
\ No newline at end of file
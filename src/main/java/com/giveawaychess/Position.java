@@ -0,0 +1,447 @@
+package com.giveawaychess;
+
+import java.util.Arrays;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Bitboard storage for a position: one long per (color, type) plus occupancy masks.
+// A byte mailbox mirrors the bitboards so "what is on this square" stays a single lookup.
+public class Position {
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+    public static final int PIECE_KINDS = 12;
+    private static final int INITIAL_PLIES = 256;
+    // Piece values of the built-in bots (CompiledProfile.DEFAULT) by piece index; the ones every
+    // position starts with, so material() is meaningful before setWeights
+    static final int[] DEFAULT_PIECE_WEIGHTS = {0, 9, 5, 3, 3, 1, 0, 9, 5, 3, 3, 1};
+    private static final int[] NO_SQUARE_WEIGHTS = new int[PIECE_KINDS * 64];
+
+    static final PieceType[] TYPES = PieceType.values();
+    static final Color[] COLORS = Color.values();
+
+    private final long[] pieces = new long[PIECE_KINDS];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final byte[] squares = new byte[64];
+    // Zobrist key of the piece placement, updated by add/remove; hash() folds in side and en passant
+    private long pieceKey;
+    // Evaluation terms, also updated by add/remove: per color ordinal, the sum of a weight per piece
+    // (material) and of a weight per piece and square (placement). The tables come from setWeights;
+    // until then pieces weigh DEFAULT_PIECE_WEIGHTS and squares nothing. Placement weights are indexed
+    // piece * 64 + square.
+    private int[] pieceWeights = DEFAULT_PIECE_WEIGHTS;
+    private int[] squareWeights = NO_SQUARE_WEIGHTS;
+    private final int[] material = new int[2];
+    private final int[] placement = new int[2];
+
+    // Square a pawn skipped with its two-step push last turn, or NO_SQUARE
+    private int enPassantSquare = NO_SQUARE;
+    // Bit per color ordinal; set when that side may not use the two-square pawn push (Newbie bots)
+    private int noDoublePush;
+    private Color sideToMove = Color.WHITE;
+
+    // Undo stack: slot p holds what makeMove changed at ply p. The arrays are allocated once and only
+    // grow when a game outlives them, so making and unmaking moves never allocates.
+    private int ply;
+    private int[] undoMoves = new int[INITIAL_PLIES];
+    private byte[] undoMoved = new byte[INITIAL_PLIES];
+    private byte[] undoCaptured = new byte[INITIAL_PLIES];
+    private byte[] undoCaptureSquare = new byte[INITIAL_PLIES];
+    private byte[] undoEnPassant = new byte[INITIAL_PLIES];
+    private byte[] undoSide = new byte[INITIAL_PLIES];
+
+    public Position() {
+        clear();
+    }
+
+    public Position(Position other) {
+        copyFrom(other);
+    }
+
+    // Piece index layout: color * 6 + type, so white pieces are 0..5 and black pieces 6..11
+    public static int index(Color color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public static Color colorOf(int index) {
+        return COLORS[index / 6];
+    }
+
+    public static PieceType typeOf(int index) {
+        return TYPES[index % 6];
+    }
+
+    public void clear() {
+        for (int i = 0; i < PIECE_KINDS; i++) {
+            pieces[i] = 0L;
+        }
+        colors[0] = 0L;
+        colors[1] = 0L;
+        occupied = 0L;
+        pieceKey = 0L;
+        material[0] = 0;
+        material[1] = 0;
+        placement[0] = 0;
+        placement[1] = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            squares[sq] = EMPTY;
+        }
+        enPassantSquare = NO_SQUARE;
+        sideToMove = Color.WHITE;
+        ply = 0;
+    }
+
+    // Copies the placement and game state; the copy starts with an empty undo stack
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_KINDS);
+        colors[0] = other.colors[0];
+        colors[1] = other.colors[1];
+        occupied = other.occupied;
+        pieceKey = other.pieceKey;
+        pieceWeights = other.pieceWeights;
+        squareWeights = other.squareWeights;
+        System.arraycopy(other.material, 0, material, 0, 2);
+        System.arraycopy(other.placement, 0, placement, 0, 2);
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        enPassantSquare = other.enPassantSquare;
+        noDoublePush = other.noDoublePush;
+        sideToMove = other.sideToMove;
+        ply = 0;
+    }
+
+    public Position copy() {
+        return new Position(this);
+    }
+
+    // Fills the position from a legacy 8x8 array (null = empty square)
+    public void load(Piece[][] board) {
+        clear();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board[row][col];
+                if (piece != null) {
+                    add(Bitboards.square(row, col), index(piece.getColor(), piece.getType()));
+                }
+            }
+        }
+    }
+
+    private static final String FEN_PIECES = "KQRBNPkqrbnp"; // in piece index order
+
+    // Reads a FEN string. Castling rights mean nothing in antichess and the move counters are not
+    // tracked, so only the placement, side to move and en passant fields are used.
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        Position pos = new Position();
+        int row = 7;
+        int col = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (Character.isDigit(c)) {
+                col += c - '0';
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if (piece < 0 || row < 0 || col > 7) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                }
+                pos.add(Bitboards.square(row, col++), piece);
+            }
+        }
+        if (fields.length > 1 && fields[1].equals("b")) {
+            pos.sideToMove = Color.BLACK;
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            pos.enPassantSquare = Bitboards.square(fields[3].charAt(1) - '1', fields[3].charAt(0) - 'a');
+        }
+        return pos;
+    }
+
+    public String toFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = squares[Bitboards.square(row, col)];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(FEN_PIECES.charAt(piece));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row > 0) {
+                sb.append('/');
+            }
+        }
+        sb.append(sideToMove == Color.WHITE ? " w - " : " b - ");
+        sb.append(enPassantSquare == NO_SQUARE ? "-" : MoveGenerator.squareName(enPassantSquare));
+        return sb.append(" 0 1").toString();
+    }
+
+    // Places a piece on an empty square
+    public void add(int square, int piece) {
+        long b = 1L << square;
+        pieces[piece] |= b;
+        colors[piece / 6] |= b;
+        occupied |= b;
+        squares[square] = (byte) piece;
+        pieceKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        material[piece / 6] += pieceWeights[piece];
+        placement[piece / 6] += squareWeights[piece << 6 | square];
+    }
+
+    // Empties a square and returns what was there (EMPTY if nothing)
+    public int remove(int square) {
+        int piece = squares[square];
+        if (piece != EMPTY) {
+            long b = ~(1L << square);
+            pieces[piece] &= b;
+            colors[piece / 6] &= b;
+            occupied &= b;
+            squares[square] = EMPTY;
+            pieceKey ^= Zobrist.PIECE_SQUARE[piece][square];
+            material[piece / 6] -= pieceWeights[piece];
+            placement[piece / 6] -= squareWeights[piece << 6 | square];
+        }
+        return piece;
+    }
+
+    // Puts a piece on a square, replacing whatever was there; EMPTY clears the square
+    public void set(int square, int piece) {
+        remove(square);
+        if (piece != EMPTY) {
+            add(square, piece);
+        }
+    }
+
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long pieces(Color color, PieceType type) {
+        return pieces[index(color, type)];
+    }
+
+    public long occupancy(Color color) {
+        return colors[color.ordinal()];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int count(Color color) {
+        return Long.bitCount(colors[color.ordinal()]);
+    }
+
+    // Installs the tables material() and placement() sum: a weight per piece index, and one per piece
+    // index * 64 + square. Null piece weights stand for DEFAULT_PIECE_WEIGHTS, null square weights for
+    // all zero. The tables are shared, not copied, so they must not change afterwards.
+    public void setWeights(int[] pieceWeights, int[] squareWeights) {
+        this.pieceWeights = pieceWeights != null ? pieceWeights : DEFAULT_PIECE_WEIGHTS;
+        this.squareWeights = squareWeights != null ? squareWeights : NO_SQUARE_WEIGHTS;
+        for (Color color : COLORS) {
+            material[color.ordinal()] = computeMaterial(color);
+            placement[color.ordinal()] = computePlacement(color);
+        }
+    }
+
+    // Sum of the piece weights of 'color', kept up to date move by move
+    public int material(Color color) {
+        return material[color.ordinal()];
+    }
+
+    // Sum of the piece-square weights of 'color', kept up to date move by move
+    public int placement(Color color) {
+        return placement[color.ordinal()];
+    }
+
+    // The same sums computed from scratch, for checking the incremental ones
+    public int computeMaterial(Color color) {
+        int total = 0;
+        for (long own = colors[color.ordinal()]; own != 0; own &= own - 1) {
+            total += pieceWeights[squares[Long.numberOfTrailingZeros(own)]];
+        }
+        return total;
+    }
+
+    public int computePlacement(Color color) {
+        int total = 0;
+        for (long own = colors[color.ordinal()]; own != 0; own &= own - 1) {
+            int square = Long.numberOfTrailingZeros(own);
+            total += squareWeights[squares[square] << 6 | square];
+        }
+        return total;
+    }
+
+    private boolean weightsMatch() {
+        for (Color color : COLORS) {
+            if (material(color) != computeMaterial(color) || placement(color) != computePlacement(color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Plays a move encoded by MoveGenerator. The caller is responsible for legality. En passant removes
+    // the pawn beside the target, and a pawn reaching the last row becomes the encoded promotion piece
+    // (a queen when none is given). The previous state is pushed so unmakeMove can restore it exactly.
+    public void makeMove(int move) {
+        if (ply == undoMoves.length) {
+            growUndoStack();
+        }
+        int from = MoveGenerator.from(move);
+        int to = MoveGenerator.to(move);
+        int moved = squares[from];
+        Color color = colorOf(moved);
+        boolean pawn = typeOf(moved) == PieceType.PAWN;
+
+        int captureSquare = to;
+        if (pawn && to == enPassantSquare && Bitboards.col(from) != Bitboards.col(to)) {
+            captureSquare = Bitboards.square(Bitboards.row(from), Bitboards.col(to));
+        }
+
+        undoMoves[ply] = move;
+        undoMoved[ply] = (byte) moved;
+        undoCaptureSquare[ply] = (byte) captureSquare;
+        undoCaptured[ply] = (byte) remove(captureSquare);
+        undoEnPassant[ply] = (byte) enPassantSquare;
+        undoSide[ply] = (byte) sideToMove.ordinal();
+        ply++;
+
+        remove(from);
+        int placed = moved;
+        if (pawn && Bitboards.row(to) == (color == Color.WHITE ? 7 : 0)) {
+            PieceType promotion = MoveGenerator.promotion(move);
+            placed = index(color, promotion == null ? PieceType.QUEEN : promotion);
+        }
+        add(to, placed);
+
+        enPassantSquare = pawn && Math.abs(to - from) == 16 ? (from + to) / 2 : NO_SQUARE;
+        sideToMove = color.opposite();
+        assert hash() == computeHash() : "incremental hash drifted after " + move;
+        assert weightsMatch() : "incremental evaluation drifted after " + move;
+    }
+
+    // Takes back the most recent makeMove
+    public void unmakeMove() {
+        int p = --ply;
+        int move = undoMoves[p];
+        remove(MoveGenerator.to(move));
+        add(MoveGenerator.from(move), undoMoved[p]);
+        if (undoCaptured[p] != EMPTY) {
+            add(undoCaptureSquare[p], undoCaptured[p]);
+        }
+        enPassantSquare = undoEnPassant[p];
+        sideToMove = COLORS[undoSide[p]];
+        assert hash() == computeHash() : "incremental hash drifted undoing " + move;
+        assert weightsMatch() : "incremental evaluation drifted undoing " + move;
+    }
+
+    // 64-bit Zobrist key: pieces, side to move, and the en passant file when a capture there is possible.
+    // Equal positions get equal keys whichever way they were reached.
+    public long hash() {
+        long key = pieceKey;
+        if (sideToMove == Color.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        if (enPassantSquare != NO_SQUARE && canCaptureEnPassant()) {
+            key ^= Zobrist.EN_PASSANT_FILE[Bitboards.col(enPassantSquare)];
+        }
+        return key;
+    }
+
+    // The same key computed from scratch, for checking the incremental one
+    public long computeHash() {
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (squares[sq] != EMPTY) {
+                key ^= Zobrist.PIECE_SQUARE[squares[sq]][sq];
+            }
+        }
+        if (sideToMove == Color.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        if (enPassantSquare != NO_SQUARE && canCaptureEnPassant()) {
+            key ^= Zobrist.EN_PASSANT_FILE[Bitboards.col(enPassantSquare)];
+        }
+        return key;
+    }
+
+    // A pawn of the side to move stands next to the pawn that just made its two-step push
+    private boolean canCaptureEnPassant() {
+        return (MoveGenerator.enPassantTarget(this, sideToMove) != 0)
+            && (Attacks.PAWN[sideToMove.opposite().ordinal()][enPassantSquare] & pieces(sideToMove, PieceType.PAWN)) != 0;
+    }
+
+    // Number of moves on the undo stack
+    public int getPly() {
+        return ply;
+    }
+
+    // Piece index taken by the most recent move, or EMPTY
+    public int lastCaptured() {
+        return undoCaptured[ply - 1];
+    }
+
+    // Piece index that made the most recent move, as it stood before any promotion
+    public int lastMoved() {
+        return undoMoved[ply - 1];
+    }
+
+    // True when the most recent move captured en passant
+    public boolean lastWasEnPassant() {
+        return undoCaptureSquare[ply - 1] != MoveGenerator.to(undoMoves[ply - 1]);
+    }
+
+    private void growUndoStack() {
+        int size = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, size);
+        undoMoved = Arrays.copyOf(undoMoved, size);
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+        undoCaptureSquare = Arrays.copyOf(undoCaptureSquare, size);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, size);
+        undoSide = Arrays.copyOf(undoSide, size);
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(Color color) {
+        this.sideToMove = color;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int square) {
+        this.enPassantSquare = square;
+    }
+
+    public boolean isDoublePushAllowed(Color color) {
+        return (noDoublePush & (1 << color.ordinal())) == 0;
+    }
+
+    public void setDoublePushAllowed(Color color, boolean allowed) {
+        if (allowed) {
+            noDoublePush &= ~(1 << color.ordinal());
+        } else {
+            noDoublePush |= 1 << color.ordinal();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.giveawaychess;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Decides what a pawn becomes when it reaches the last row. ChessBoard asks the policy registered for
+// the moving side unless the Move already names a piece.
+@FunctionalInterface
+public interface PromotionPolicy {
+    // Antichess allows promoting to a king as well
+    Piece.PieceType[] CHOICES = {Piece.PieceType.QUEEN, Piece.PieceType.ROOK, Piece.PieceType.BISHOP, Piece.PieceType.KNIGHT, Piece.PieceType.KING};
+
+    PromotionPolicy QUEEN = color -> Piece.PieceType.QUEEN;
+    PromotionPolicy RANDOM = color -> CHOICES[ThreadLocalRandom.current().nextInt(CHOICES.length)];
+
+    Piece.PieceType choose(Piece.Color color);
+}
@@ -0,0 +1,305 @@
+package com.giveawaychess;
+
+import java.util.Arrays;
+
+import com.giveawaychess.Piece.Color;
+
+// Depth-first proof-number search (df-pn) that proves antichess positions won outright, however deep
+// the win. Antichess is heavily forced, so a proof tree is often far smaller than the tree a fixed-depth
+// search would need to see the same win.
+//
+// A run tries to prove that one side, the prover, wins. Every node keeps a proof number (how many more
+// leaves must be proved at least) and a disproof number, both from the point of view of the side to move
+// there; the search always expands the most-proving node, under thresholds that let it stay deep in the
+// tree instead of walking back to the root each time. A position repeated on the current line, or a line
+// longer than MAX_DEPTH, counts as a failure for the prover, so a proof is always a finite win; a failed
+// proof may be too pessimistic, never the other way round.
+//
+// Numbers live in a fixed-size table of two-slot buckets, so memory stays bounded however long the search
+// runs. Open entries make way before solved ones, and solved ones before proved wins. Only proved wins outlive the run that
+// found them (anything else may rest on the repetitions of that run's lines), which makes the table a
+// cache of won positions: solving a position that was solved before, or one reached by playing the
+// proof move, costs a few lookups. Usage: java -cp target/classes com.giveawaychess.ProofSolver [nodes] fen
+public final class ProofSolver {
+    // Outcome for the side to move
+    public enum Outcome {
+        WIN, LOSS, UNKNOWN
+    }
+
+    static final int INFINITY = 1 << 28;
+    private static final int MAX_DEPTH = 256;
+    private static final long[] PROVER_KEYS = {0x510E527FADE682D1L, 0x9B05688C2B3E6C1FL}; // by Color ordinal
+    private static final int WON = 0x80;   // stamp bit: the entry proves the prover wins
+    private static final int RUNS = 0x7F;  // stamp bits: run that stored the entry
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int[] work;  // nodes spent under the entry, capped; of two entries the smaller goes first
+    private final byte[] stamps;
+    private final int mask;    // bucket index mask; a bucket is two slots
+    private int run;
+
+    private final int[][] buffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+    private final long[][] childKeys = new long[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+    private final long[] path = new long[MAX_DEPTH];  // keys of the positions on the current line
+    private Position pos;
+    private Color prover;
+    private long proverKey;
+    private long nodes;
+    private long nodeLimit;
+    private int bestMove = MoveGenerator.NO_MOVE;
+
+    public ProofSolver(int megabytes) {
+        long slots = Math.max(2L, (long) megabytes * 1024 * 1024 / 21);
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        work = new int[size];
+        stamps = new byte[size];
+        mask = size / 2 - 1;
+    }
+
+    // Proves a win or a loss for the side to move of 'root' within 'nodeLimit' nodes in total. After a
+    // WIN, bestMove() is a move that keeps the win.
+    public Outcome solve(Position root, long nodeLimit) {
+        Color side = root.getSideToMove();
+        if (prove(root, side, nodeLimit)) {
+            return Outcome.WIN;
+        }
+        // A loss is the opponent's win, proved from the same position with us to move
+        long spent = nodes;
+        boolean lost = spent < nodeLimit && prove(root, side.opposite(), nodeLimit - spent);
+        nodes += spent;
+        return lost ? Outcome.LOSS : Outcome.UNKNOWN;
+    }
+
+    // True when the side to move of 'root' was proved to win within 'nodeLimit' nodes
+    public boolean proveWin(Position root, long nodeLimit) {
+        return prove(root, root.getSideToMove(), nodeLimit);
+    }
+
+    // Move that keeps the win after a WIN from solve() or a true from proveWin(), otherwise NO_MOVE
+    public int bestMove() {
+        return bestMove;
+    }
+
+    // Nodes the last solve() or proveWin() searched
+    public long nodes() {
+        return nodes;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(proofs, 0);
+        Arrays.fill(disproofs, 0);
+        Arrays.fill(work, 0);
+        Arrays.fill(stamps, (byte) 0);
+    }
+
+    // Runs df-pn from 'root' trying to prove that 'prover' wins; the root itself is left as it was
+    private boolean prove(Position root, Color prover, long nodeLimit) {
+        this.pos = root.copy();
+        this.prover = prover;
+        this.proverKey = PROVER_KEYS[prover.ordinal()];
+        this.nodes = 0;
+        this.nodeLimit = nodeLimit;
+        this.bestMove = MoveGenerator.NO_MOVE;
+        run = (run + 1) & RUNS;
+        if (run == 0) {
+            forgetOpenEntries();  // run numbers start over, so old entries would pass for new ones
+            run = 1;
+        }
+        search(0, INFINITY, INFINITY);
+
+        long entry = probe(key());
+        boolean proverToMove = pos.getSideToMove() == prover;
+        boolean won = entry != -1 && (proverToMove ? proof(entry) == 0 : disproof(entry) == 0);
+        if (won && proverToMove) {
+            bestMove = provingMove();
+        }
+        return won;
+    }
+
+    // Expands the most-proving node below the current position until its proof number reaches
+    // 'proofLimit' or its disproof number reaches 'disproofLimit', then stores both numbers
+    private void search(int depth, int proofLimit, int disproofLimit) {
+        nodes++;
+        long key = key();
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        if (count == 0) {
+            store(key, 0, INFINITY, 1);  // no legal move: the side to move has won
+            return;
+        }
+        path[depth] = key;
+        long[] children = childKeys[depth];
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            children[i] = key();
+            pos.unmakeMove();
+        }
+        boolean proverMovesNext = pos.getSideToMove() != prover;
+        long start = nodes;
+        while (true) {
+            // The side to move needs one child the opponent fails in, and fails only if it fails in all
+            int proof = INFINITY;
+            long disproof = 0;
+            int bestChild = 0;
+            int bestChildProof = 0;
+            int secondProof = INFINITY;
+            for (int i = 0; i < count; i++) {
+                long entry = childEntry(children[i], depth + 1, proverMovesNext);
+                int childProof = proof(entry);
+                int childDisproof = disproof(entry);
+                if (childDisproof < proof) {
+                    secondProof = proof;
+                    proof = childDisproof;
+                    bestChild = i;
+                    bestChildProof = childProof;
+                } else if (childDisproof < secondProof) {
+                    secondProof = childDisproof;
+                }
+                disproof += childProof;
+            }
+            int disproofSum = (int) Math.min(disproof, INFINITY);
+            if (proof >= proofLimit || disproofSum >= disproofLimit || nodes >= nodeLimit) {
+                store(key, proof, disproofSum, nodes - start + 1);
+                return;
+            }
+            int childProofLimit = (int) Math.min(INFINITY, (long) disproofLimit - disproofSum + bestChildProof);
+            int childDisproofLimit = Math.min(proofLimit, secondProof + 1);
+            pos.makeMove(moves[bestChild]);
+            search(depth + 1, childProofLimit, childDisproofLimit);
+            pos.unmakeMove();
+        }
+    }
+
+    // Numbers of the child with 'key' at 'depth': from the table, unless the position repeats one on the
+    // line above it or the line is too long, which both count as the prover failing
+    private long childEntry(long key, int depth, boolean proverToMove) {
+        boolean proverFails = depth >= MAX_DEPTH;
+        for (int d = depth - 2; d >= 0 && !proverFails; d -= 2) {
+            proverFails = path[d] == key;  // same side to move only every second ply
+        }
+        if (proverFails) {
+            return proverToMove ? pack(INFINITY, 0) : pack(0, INFINITY);
+        }
+        long entry = probe(key);
+        return entry != -1 ? entry : pack(1, 1);
+    }
+
+    // A root move whose position the opponent was proved to lose; of several, the one proved with the
+    // least work, which tends to be the shortest way to the win
+    private int provingMove() {
+        int[] moves = buffers[0];
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        int best = MoveGenerator.NO_MOVE;
+        int bestWork = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            long key = key();
+            int slot = find(key);
+            pos.unmakeMove();
+            if (slot >= 0 && disproofs[slot] == 0 && work[slot] < bestWork) {
+                best = moves[i];
+                bestWork = work[slot];
+            }
+        }
+        return best;
+    }
+
+    private long key() {
+        return pos.hash() ^ proverKey;
+    }
+
+    // Packed (proof, disproof) for 'key', or -1 when the table has none
+    private long probe(long key) {
+        int slot = find(key);
+        return slot < 0 ? -1 : pack(proofs[slot], disproofs[slot]);
+    }
+
+    private int find(long key) {
+        int slot = ((int) key & mask) << 1;
+        if (keys[slot] == key && isValid(slot)) {
+            return slot;
+        }
+        if (keys[slot + 1] == key && isValid(slot + 1)) {
+            return slot + 1;
+        }
+        return -1;
+    }
+
+    // Stores the numbers of the current position, whose key is 'key'
+    private void store(long key, int proof, int disproof, long spent) {
+        boolean won = pos.getSideToMove() == prover ? proof == 0 : disproof == 0;
+        int slot = ((int) key & mask) << 1;
+        if (keys[slot + 1] == key && isValid(slot + 1)) {
+            slot++;
+        } else if (keys[slot] != key || !isValid(slot)) {
+            // Replace the lower-ranked entry, of two equal ones the one less work went into
+            int first = rank(slot);
+            int second = rank(slot + 1);
+            if (second < first || (second == first && work[slot + 1] < work[slot])) {
+                slot++;
+            }
+        }
+        keys[slot] = key;
+        proofs[slot] = proof;
+        disproofs[slot] = disproof;
+        work[slot] = (int) Math.max(1, Math.min(spent, Integer.MAX_VALUE));
+        stamps[slot] = (byte) (run | (won ? WON : 0));
+    }
+
+    private boolean isValid(int slot) {
+        return work[slot] != 0 && ((stamps[slot] & WON) != 0 || (stamps[slot] & RUNS) == run);
+    }
+
+    // 3 for a proved win, 2 for other solved entries, 1 for open ones and 0 for nothing usable
+    private int rank(int slot) {
+        if (!isValid(slot)) {
+            return 0;
+        }
+        if ((stamps[slot] & WON) != 0) {
+            return 3;
+        }
+        return proofs[slot] == 0 || disproofs[slot] == 0 ? 2 : 1;
+    }
+
+    private void forgetOpenEntries() {
+        for (int slot = 0; slot < work.length; slot++) {
+            if ((stamps[slot] & WON) == 0) {
+                work[slot] = 0;
+            }
+        }
+    }
+
+    private static long pack(int proof, int disproof) {
+        return ((long) proof << 32) | disproof;
+    }
+
+    private static int proof(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int disproof(long entry) {
+        return (int) entry;
+    }
+
+    public static void main(String[] args) {
+        long nodeLimit = 1_000_000;
+        int first = 0;
+        if (args.length > 1 && args[0].matches("\\d+")) {
+            nodeLimit = Long.parseLong(args[0]);
+            first = 1;
+        }
+        String fen = args.length > first ? String.join(" ", Arrays.asList(args).subList(first, args.length)) : Perft.START_FEN;
+        ProofSolver solver = new ProofSolver(64);
+        long start = System.nanoTime();
+        Outcome outcome = solver.solve(Position.fromFen(fen), nodeLimit);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        String move = solver.bestMove() == MoveGenerator.NO_MOVE ? "" : ", play " + MoveGenerator.toString(solver.bestMove());
+        System.out.println(outcome + move + " (" + solver.nodes() + " nodes, " + millis + " ms)");
+    }
+}
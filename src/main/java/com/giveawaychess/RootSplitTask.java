@@ -0,0 +1,84 @@
+package com.giveawaychess;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One iteration of a root search with the root moves scored in parallel on the common ForkJoinPool.
+// The move range is halved until each task holds a single move, which it scores under the leader's
+// limits on the worker thread's own copy of the position (Search.worker, one per thread and search).
+//
+// The best result so far is one AtomicLong holding (score, move index), so a plain min() keeps the
+// lowest score and, among equal scores, the earliest move: the same pick as the sequential loop.
+// Every move is searched with that result as its bound, which lets moves that cannot beat it stop
+// early however the tasks are scheduled. A move searched with another bound than in the sequential
+// loop can see its capture chains cut short elsewhere (Search.quiesce has a node cap), so on rare
+// close calls the pick differs.
+final class RootSplitTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final long NONE = Long.MAX_VALUE;
+
+    private final Search leader;
+    private final MoveList moves;
+    private final int start;
+    private final int end;
+    private final int depth;
+    private final BotLogic.RootScorer scorer;
+    private final AtomicLong best;
+
+    private RootSplitTask(Search leader, MoveList moves, int start, int end, int depth,
+                          BotLogic.RootScorer scorer, AtomicLong best) {
+        this.leader = leader;
+        this.moves = moves;
+        this.start = start;
+        this.end = end;
+        this.depth = depth;
+        this.scorer = scorer;
+        this.best = best;
+    }
+
+    // Scores the leader's root moves (already generated at ply 0) to 'depth' and returns the one with
+    // the lowest score, or NO_MOVE if the leader was stopped before every move had a score
+    static int search(Search leader, int depth, BotLogic.RootScorer scorer) {
+        MoveList moves = leader.moves(0);
+        AtomicLong best = new AtomicLong(NONE);
+        ForkJoinPool.commonPool().invoke(new RootSplitTask(leader, moves, 0, moves.size(), depth, scorer, best));
+        long result = best.get();
+        if (leader.isStopped() || result == NONE) {
+            return MoveGenerator.NO_MOVE;
+        }
+        return moves.get((int) result);
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start > 1) {
+            int middle = (start + end) >>> 1;
+            invokeAll(new RootSplitTask(leader, moves, start, middle, depth, scorer, best),
+                      new RootSplitTask(leader, moves, middle, end, depth, scorer, best));
+            return;
+        }
+        if (leader.isStopped()) {
+            return;
+        }
+        Search search = leader.worker();
+        int move = moves.get(start);
+        search.position().makeMove(move);
+        int score = scorer.score(search, move, depth, bound(best.get(), start));
+        search.position().unmakeMove();
+        if (!search.isStopped()) {
+            // A score cut off at the bound is never below the result it was bounded by, so it cannot win
+            best.accumulateAndGet(((long) score << 32) | start, Math::min);
+        }
+    }
+
+    // Score move 'index' has to stay under to beat 'result'; an equal score wins only for an earlier move
+    private static int bound(long result, int index) {
+        if (result == NONE) {
+            return Integer.MAX_VALUE;
+        }
+        int score = (int) (result >> 32);
+        int bestIndex = (int) result;
+        return index < bestIndex && score < Integer.MAX_VALUE ? score + 1 : score;
+    }
+}
@@ -0,0 +1,494 @@
+package com.giveawaychess;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Fixed-depth minimax for the bots, run on a private copy of the game position. Forced single replies
+// do not count against the depth, up to MAX_EXTENSIONS of them on one line. Moves are played
+// and taken back with Position.makeMove/unmakeMove and every ply generates into its own MoveList,
+// created the first time the search reaches that ply and reused after that. Scores are from the bot's point of view,
+// on the scale of whichever evaluator the bot uses.
+//
+// A search runs under SearchLimits: every CHECK_INTERVAL nodes it looks at the clock, the node budget and
+// stop(), and once any of them says so it unwinds without storing anything. Callers check isStopped()
+// and throw away the unfinished iteration. Searches made with helper() can follow() another one: they
+// share its clock, its node budget and its stop request.
+//
+// Results go into an optional TranspositionTable. Its keys mix the position hash with the bot's color,
+// the evaluator (keySalt) and whether the node maximizes, because the same position scores differently
+// under each of those.
+//
+// With a Tablebase set, positions it holds as won or lost are not searched at all: they score as the
+// game end the tablebase gives, so the search cuts off there and prefers the fastest win.
+final class Search {
+    static final int MAX_PLY = 64;
+    // Score of a finished game; the plies to the end are taken off so quicker wins and slower losses
+    // score better. Tablebase wins end up to Byte.MAX_VALUE plies past the last ply searched.
+    static final int WIN = 1_000_000;
+    private static final int WIN_BOUND = WIN - MAX_PLY - Byte.MAX_VALUE;
+    private static final long MAXIMIZING_KEY = 0x6A09E667F3BCC909L;
+    private static final long BLACK_BOT_KEY = 0xBB67AE8584CAA73BL;
+    private static final int CHECK_INTERVAL = 1024; // nodes between limit checks; a power of two
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+    // Capture-chain nodes searched below one horizon node before the rest is scored as it stands
+    private static final int QUIESCENCE_NODES = 64;
+    // Single-reply plies one line may play without spending depth
+    private static final int MAX_EXTENSIONS = 8;
+
+    // Move ordering tiers for alphaBeta: hash move, killers, captures, then quiet moves by history
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    // Piece values for ordering captures only, by PieceType ordinal; the king is worth giving away too
+    private static final int[] ORDER_VALUES = {2, 9, 5, 3, 3, 1};
+
+    interface Evaluator {
+        int evaluate(Position pos, Color botColor);
+    }
+
+    private final Position pos;
+    private final Color botColor;
+    private final Evaluator evaluator;
+    // True for the giveaway evaluators, where the bot prefers low scores
+    private final boolean lowerIsBetter;
+    private final boolean noQueenMoves;
+    private final MoveList[] moves = new MoveList[MAX_PLY];
+    private final MoveList scratch = new MoveList();
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][64 * 64]; // by side, then from * 64 + to
+    private final TranspositionTable table;
+    private Tablebase tablebase;  // null = none
+    private final long evaluatorSalt;
+    private final long keySalt;
+
+    private long nodes;
+    private int quiescenceNodes; // under the current horizon node
+    private int extensions;      // single-reply plies extended on the current line
+    private long nodeLimit;   // 0 = none
+    private long startNanos;
+    private long deadline;    // System.nanoTime() value; 0 = none
+    private long millis;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+    private Search leader;                                  // set by follow()
+    private final AtomicLong followerNodes = new AtomicLong(); // nodes reported by followers
+    private ConcurrentHashMap<Thread, Search> workers;      // see worker(); made on first use
+
+    Search(Position root, Color botColor, Evaluator evaluator, boolean lowerIsBetter, boolean noQueenMoves,
+           TranspositionTable table, long keySalt) {
+        this.pos = root.copy();
+        this.pos.setSideToMove(botColor);
+        this.botColor = botColor;
+        this.evaluator = evaluator;
+        this.lowerIsBetter = lowerIsBetter;
+        this.noQueenMoves = noQueenMoves;
+        this.table = table;
+        this.evaluatorSalt = keySalt;
+        this.keySalt = keySalt ^ (botColor == Color.BLACK ? BLACK_BOT_KEY : 0L);
+    }
+
+    // A search of the same root for a helper thread: its own position and move lists, the same table
+    Search helper() {
+        Search helper = new Search(pos, botColor, evaluator, lowerIsBetter, noQueenMoves, table, evaluatorSalt);
+        helper.tablebase = tablebase;
+        return helper;
+    }
+
+    // The calling thread's helper for scoring one root move (RootSplitTask): made the first time the
+    // thread scores a move for this search, then reused for every later move and iteration. It is
+    // reset to this search's root and limits each time, with no killers or history left over, so it
+    // scores the move as a new helper() would.
+    Search worker() {
+        ConcurrentHashMap<Thread, Search> threads;
+        synchronized (this) {
+            if (workers == null) {
+                workers = new ConcurrentHashMap<>();
+            }
+            threads = workers;
+        }
+        Search worker = threads.computeIfAbsent(Thread.currentThread(), thread -> helper());
+        worker.pos.copyFrom(pos);
+        for (int[] plyKillers : worker.killers) {
+            Arrays.fill(plyKillers, MoveGenerator.NO_MOVE);
+        }
+        for (int[] sideHistory : worker.history) {
+            Arrays.fill(sideHistory, 0);
+        }
+        worker.extensions = 0;
+        worker.follow(this);
+        return worker;
+    }
+
+    // Positions the tablebase covers are scored from it instead of being searched
+    void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    // Resets the node count and starts the clock for 'limits'
+    void start(SearchLimits limits) {
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        millis = limits.getMillis();
+        startNanos = System.nanoTime();
+        deadline = millis > 0 ? startNanos + millis * 1_000_000 : 0;
+        stopped = false;
+        leader = null;
+        followerNodes.set(0);
+    }
+
+    // Runs under the limits 'leader' was started with; stopping one stops the others
+    void follow(Search leader) {
+        this.leader = leader;
+        nodes = 0;
+        nodeLimit = leader.nodeLimit;
+        millis = leader.millis;
+        startNanos = leader.startNanos;
+        deadline = leader.deadline;
+        stopped = false;
+    }
+
+    // Asks the search to give up at its next check; safe to call from any thread
+    void stop() {
+        stopRequested = true;
+    }
+
+    boolean isStopped() {
+        return stopped || stopRequested;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    // False once half of the time budget is gone: the next, deeper iteration would not finish anyway
+    boolean hasTimeForNextDepth() {
+        return !isStopped() && (deadline == 0 || (System.nanoTime() - startNanos) * 2 < millis * 1_000_000);
+    }
+
+    private boolean shouldStop() {
+        if (!stopped && (++nodes & (CHECK_INTERVAL - 1)) == 0) {
+            Search lead = leader;
+            long counted = lead == null ? nodes : lead.followerNodes.addAndGet(CHECK_INTERVAL);
+            stopped = stopRequested
+                || (lead != null && lead.stopRequested)
+                || (nodeLimit > 0 && counted >= nodeLimit)
+                || (deadline != 0 && System.nanoTime() - deadline >= 0);
+            if (stopped && lead != null) {
+                lead.stop();  // the rest of the group stops at its next check
+            }
+        }
+        return stopped;
+    }
+
+    Position position() {
+        return pos;
+    }
+
+    MoveList moves(int ply) {
+        MoveList list = moves[ply];
+        if (list == null) {
+            list = moves[ply] = new MoveList();
+        }
+        return list;
+    }
+
+    // Legal moves for the side to move into the list for 'ply'; returns the count
+    int generate(int ply) {
+        MoveList list = moves(ply);
+        list.generateLegal(pos, pos.getSideToMove());
+        if (noQueenMoves && pos.getSideToMove() == botColor) {
+            list.excludePiece(pos, PieceType.QUEEN);  // "No Queen Moves" wild card
+        }
+        return list.size();
+    }
+
+    // Number of legal moves 'side' would have in the current position
+    int countMoves(Color side) {
+        return scratch.generateLegal(pos, side);
+    }
+
+    int minimax(int depth, int ply, boolean isMaximizing) {
+        if (shouldStop()) {
+            return 0;
+        }
+        int known = tablebaseScore(ply);
+        if (known != NO_SCORE) {
+            return known;
+        }
+        if (depth == 0) {
+            return evaluator.evaluate(pos, botColor);
+        }
+        int count = generate(ply);
+        if (count == 0) {
+            return terminalScore(ply);
+        }
+        if (count == 1 && extensions < MAX_EXTENSIONS) {
+            extensions++;  // single reply, see alphaBeta
+            pos.makeMove(moves[ply].get(0));
+            int eval = minimax(depth, ply + 1, !isMaximizing);
+            pos.unmakeMove();
+            extensions--;
+            return eval;
+        }
+        long key = nodeKey(isMaximizing);
+        int hashMove = MoveGenerator.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != 0) {
+                if (TranspositionTable.depth(entry) >= depth && TranspositionTable.bound(entry) == TranspositionTable.EXACT) {
+                    return fromTable(TranspositionTable.score(entry), ply);
+                }
+                hashMove = TranspositionTable.move(entry);
+            }
+        }
+
+        MoveList list = moves[ply];
+        list.moveToFront(hashMove);
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = MoveGenerator.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(list.get(i));
+            int eval = minimax(depth - 1, ply + 1, !isMaximizing);
+            pos.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (isMaximizing ? eval > best : eval < best) {
+                best = eval;
+                bestMove = list.get(i);
+            }
+        }
+        if (table != null) {
+            table.store(key, bestMove, toTable(best, ply), depth, TranspositionTable.EXACT);
+        }
+        return best;
+    }
+
+    int alphaBeta(int depth, int ply, int alpha, int beta, boolean isMaximizing) {
+        if (shouldStop()) {
+            return 0;
+        }
+        if (depth == 0) {
+            quiescenceNodes = 0;
+            return quiesce(ply, alpha, beta, isMaximizing);
+        }
+        int known = tablebaseScore(ply);
+        if (known != NO_SCORE) {
+            return known;
+        }
+        int count = generate(ply);
+        if (count == 0) {
+            return terminalScore(ply);
+        }
+        if (count == 1 && extensions < MAX_EXTENSIONS) {
+            // A single reply is played without spending depth; with nothing to choose there is nothing
+            // to order and nothing worth a table entry
+            extensions++;
+            pos.makeMove(moves[ply].get(0));
+            int eval = alphaBeta(depth, ply + 1, alpha, beta, !isMaximizing);
+            pos.unmakeMove();
+            extensions--;
+            return eval;
+        }
+        long key = nodeKey(isMaximizing);
+        int hashMove = MoveGenerator.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != 0) {
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+                hashMove = TranspositionTable.move(entry);
+            }
+        }
+
+        MoveList list = moves[ply];
+        scoreMoves(list, ply, hashMove);
+        int alphaStart = alpha;
+        int betaStart = beta;
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = MoveGenerator.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int move = list.pickBest(i);
+            pos.makeMove(move);
+            int eval = alphaBeta(depth - 1, ply + 1, alpha, beta, !isMaximizing);
+            pos.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (isMaximizing) {
+                if (eval > best) {
+                    best = eval;
+                    bestMove = move;
+                }
+                alpha = Math.max(alpha, eval);
+            } else {
+                if (eval < best) {
+                    best = eval;
+                    bestMove = move;
+                }
+                beta = Math.min(beta, eval);
+            }
+            if (beta <= alpha) {  // Prune
+                rememberCutoff(move, ply, depth);
+                break;
+            }
+        }
+        if (table != null) {
+            int bound = best <= alphaStart ? TranspositionTable.UPPER
+                : best >= betaStart ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+            table.store(key, bestMove, toTable(best, ply), depth, bound);
+        }
+        return best;
+    }
+
+    // alphaBeta past its depth. A side that has a capture must make one, so a position halfway through a
+    // capture chain is not scored as it stands: the chain is played out, which costs little because
+    // forced positions have only a few moves. Only a side left with quiet moves "stands pat" and takes
+    // the static score; unlike chess quiescence there is no standing pat while a capture is available.
+    // A side with no move at all, such as one left with blocked pawns, has won instead. After QUIESCENCE_NODES nodes, or at the last ply, the position is scored as it stands anyway.
+    private int quiesce(int ply, int alpha, int beta, boolean isMaximizing) {
+        if (shouldStop()) {
+            return 0;
+        }
+        int known = tablebaseScore(ply);
+        if (known != NO_SCORE) {
+            return known;
+        }
+        Color side = pos.getSideToMove();
+        boolean capture = MoveGenerator.hasCapture(pos, side);
+        if (!capture && !MoveGenerator.hasMove(pos, side)) {
+            return terminalScore(ply);  // no pieces left, or none that can move
+        }
+        if (!capture || ply >= MAX_PLY - 1 || ++quiescenceNodes > QUIESCENCE_NODES) {
+            return evaluator.evaluate(pos, botColor);
+        }
+        int count = generate(ply);
+        MoveList list = moves[ply];
+        if (count > 1) {
+            scoreMoves(list, ply, MoveGenerator.NO_MOVE);
+        }
+        int best = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(list.pickBest(i));
+            int eval = quiesce(ply + 1, alpha, beta, !isMaximizing);
+            pos.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (isMaximizing) {
+                best = Math.max(best, eval);
+                alpha = Math.max(alpha, eval);
+            } else {
+                best = Math.min(best, eval);
+                beta = Math.min(beta, eval);
+            }
+            if (beta <= alpha) break;  // Prune
+        }
+        return best;
+    }
+
+    // Ordering scores for the moves at 'ply', all plain ints so scoring a move costs a few lookups.
+    // Antichess captures are forced, so a list holds either only captures or only quiet moves, and the
+    // killers (the last moves to cause a cutoff at this ply) are as often captures as not. Other
+    // captures go cheapest victim and dearest capturer first, the order that gives the most material
+    // away; other quiet moves go by how often they caused a cutoff before (history).
+    private void scoreMoves(MoveList list, int ply, int hashMove) {
+        int[] sideHistory = history[pos.getSideToMove().ordinal()];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (move == plyKillers[0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == plyKillers[1]) {
+                score = KILLER_SCORE;
+            } else if (MoveGenerator.isCapture(move)) {
+                int victim = MoveGenerator.isEnPassant(move) ? PieceType.PAWN.ordinal()
+                    : Position.typeOf(pos.pieceAt(MoveGenerator.to(move))).ordinal();
+                int capturer = Position.typeOf(pos.pieceAt(MoveGenerator.from(move))).ordinal();
+                score = CAPTURE_SCORE + ORDER_VALUES[capturer] * 16 - ORDER_VALUES[victim];
+            } else {
+                score = sideHistory[MoveGenerator.squares(move)];
+            }
+            list.setScore(i, score);
+        }
+    }
+
+    // 'move' refuted this line: keep it as a killer for the ply and credit its history. Captures are
+    // credited too; a from-to square pair that refutes as a capture is often a good quiet move later.
+    private void rememberCutoff(int move, int ply, int depth) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] sideHistory = history[pos.getSideToMove().ordinal()];
+        int index = MoveGenerator.squares(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] >>= 1;  // age every entry so recent cutoffs count most
+            }
+        }
+    }
+
+    private long nodeKey(boolean isMaximizing) {
+        return pos.hash() ^ keySalt ^ (isMaximizing ? MAXIMIZING_KEY : 0L);
+    }
+
+    // Game-end scores are stored relative to the node so they stay right when reached at another ply
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_BOUND) return score + ply;
+        if (score <= -WIN_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_BOUND) return score - ply;
+        if (score <= -WIN_BOUND) return score + ply;
+        return score;
+    }
+
+    // The side to move has no legal move (or no pieces), which wins in antichess
+    private int terminalScore(int ply) {
+        return gameEndScore(pos.getSideToMove(), ply);
+    }
+
+    // Score of a game 'winner' wins at 'ply'
+    private int gameEndScore(Color winner, int ply) {
+        int score = WIN - ply;
+        boolean botWins = winner == botColor;
+        return botWins == lowerIsBetter ? -score : score;
+    }
+
+    // Game-end score of a position the tablebase holds as won or lost, otherwise NO_SCORE. Drawn
+    // positions are searched as usual, the evaluator telling the draws apart.
+    private int tablebaseScore(int ply) {
+        Tablebase tb = tablebase;
+        if (tb == null || ply == 0 || Long.bitCount(pos.occupied()) > tb.maxPieces()) {
+            return NO_SCORE;
+        }
+        int value = tb.probe(pos);
+        if (value == Tablebase.NOT_FOUND || value == Tablebase.DRAW) {
+            return NO_SCORE;
+        }
+        Color side = pos.getSideToMove();
+        return gameEndScore(Tablebase.isWin(value) ? side : side.opposite(), ply + Tablebase.distance(value));
+    }
+}
@@ -0,0 +1,55 @@
+package com.giveawaychess;
+
+// How far a bot search may go. Bots deepen one ply at a time up to 'depth' and play the best move
+// of the last depth they finished, so a time or node budget cuts the search short without losing
+// the work already done.
+public final class SearchLimits {
+    // Deepest iteration a time or node budget will start
+    public static final int MAX_DEPTH = 32;
+
+    private final int depth;
+    private final long millis; // 0 = no time limit
+    private final long nodes;  // 0 = no node limit
+
+    private SearchLimits(int depth, long millis, long nodes) {
+        this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+        this.millis = millis;
+        this.nodes = nodes;
+    }
+
+    // A fixed-depth search, as the bots have always played
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    // As deep as the machine gets within 'millis' milliseconds
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(MAX_DEPTH, millis, 0);
+    }
+
+    // As deep as 'nodes' visited positions allow; unlike a time limit this plays the same on any machine
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, 0, nodes);
+    }
+
+    public SearchLimits withMaxDepth(int maxDepth) {
+        return new SearchLimits(Math.min(depth, maxDepth), millis, nodes);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + (millis > 0 ? ", " + millis + " ms" : "") + (nodes > 0 ? ", " + nodes + " nodes" : "");
+    }
+}
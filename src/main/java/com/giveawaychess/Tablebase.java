@@ -0,0 +1,301 @@
+package com.giveawaychess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.giveawaychess.Piece.Color;
+
+// Antichess endgame tablebases: for every position with few enough pieces, whether the side to move
+// wins, loses or draws with best play, and in how many plies the game ends. TablebaseGenerator writes
+// one file per material signature ("KRvP": white's pieces, then black's); this class maps the files
+// read-only with FileChannel.map, so a probe is one byte read from the page cache, shared by every
+// JVM that opens the same files, and nothing is copied onto the heap.
+//
+// A file holds an 8-byte header ("GCTB", version, piece count, two spare bytes) and then one byte per
+// index: 0 for a draw, d + 1 for a win in d plies, -d for a loss in d plies. The index is the squares
+// of the pieces in piece index order (equal pieces by ascending square), base 64, then the side to
+// move. Only one color orientation of each signature is stored; the other one is probed mirrored.
+//
+// Positions where a capture can be made en passant are not stored; all their moves are captures, so
+// they are worked out from the smaller tables. So are positions where one side has no pieces left.
+public final class Tablebase {
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final int DRAW = 0;
+    // Tables are 2 * 64^pieces bytes, so five pieces would not fit an int index
+    public static final int MAX_PIECES = 4;
+    public static final String EXTENSION = ".gctb";
+
+    static final int HEADER = 8;
+    static final byte VERSION = 1;
+    private static final byte[] MAGIC = {'G', 'C', 'T', 'B'};
+    private static final String LETTERS = "KQRBNP";
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+    // Move buffers for bestMove and expand, one per level of expansion so a nested expand never writes
+    // over its caller's moves. Searches probe from several threads, so each thread has its own.
+    private static final int LEVELS = 4;
+    private static final ThreadLocal<int[][]> MOVES = ThreadLocal.withInitial(() -> new int[LEVELS][MoveGenerator.MAX_MOVES]);
+    private static volatile Tablebase defaultTablebase;
+
+    private final Path directory;
+    private final ConcurrentHashMap<Long, ByteBuffer> tables = new ConcurrentHashMap<>();
+    private volatile int maxPieces;
+
+    private Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    // Probes the tables in 'directory', mapping each file the first time a position needs it
+    public static Tablebase open(Path directory) {
+        Tablebase tablebase = new Tablebase(directory);
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    int pieces = name.length() - EXTENSION.length() - 1;
+                    tablebase.maxPieces = Math.max(tablebase.maxPieces, Math.min(pieces, MAX_PIECES));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return tablebase;
+    }
+
+    // The tables in the directory named by the giveawaychess.tablebases system property, or null
+    public static Tablebase getDefault() {
+        Tablebase tablebase = defaultTablebase;
+        String directory = System.getProperty("giveawaychess.tablebases");
+        if (tablebase == null && directory != null) {
+            synchronized (Tablebase.class) {
+                if (defaultTablebase == null) {
+                    defaultTablebase = open(Paths.get(directory));
+                }
+                tablebase = defaultTablebase;
+            }
+        }
+        return tablebase;
+    }
+
+    // Most pieces of any table; positions with more are never found
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    // Result for the side to move of 'pos': DRAW, a win or loss (see isWin, isLoss, distance), or
+    // NOT_FOUND when the tables do not cover the position
+    public int probe(Position pos) {
+        if (Long.bitCount(pos.occupied()) > maxPieces) {
+            return NOT_FOUND;
+        }
+        return value(pos);
+    }
+
+    // The move that wins fastest, draws, or loses slowest from 'pos', or NO_MOVE when not covered
+    public int bestMove(Position pos) {
+        if (Long.bitCount(pos.occupied()) > maxPieces) {
+            return MoveGenerator.NO_MOVE;
+        }
+        int[] moves = moves(0);
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        int best = MoveGenerator.NO_MOVE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            int reply = value(pos, 1);
+            pos.unmakeMove();
+            if (reply == NOT_FOUND) {
+                return MoveGenerator.NO_MOVE;
+            }
+            // The opponent losing is best, sooner better; a win for the opponent is worst, later better
+            int rank = reply < 0 ? 1000 + reply : reply == DRAW ? 0 : -1000 + reply;
+            if (rank > bestRank) {
+                best = moves[i];
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    public static boolean isWin(int value) {
+        return value > 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return value < 0 && value != NOT_FOUND;
+    }
+
+    // Plies to the end of the game for a win or a loss
+    public static int distance(int value) {
+        return value > 0 ? value - 1 : -value;
+    }
+
+    static int win(int plies) {
+        return Math.min(plies, Byte.MAX_VALUE - 1) + 1;
+    }
+
+    static int loss(int plies) {
+        return -Math.min(plies, Byte.MAX_VALUE);
+    }
+
+    int value(Position pos) {
+        return value(pos, 0);
+    }
+
+    // 'level' is the expansion depth, which picks expand's move buffer
+    private int value(Position pos, int level) {
+        Color side = pos.getSideToMove();
+        if (pos.occupancy(Color.WHITE) == 0 || pos.occupancy(Color.BLACK) == 0
+            || (pos.getEnPassantSquare() != Position.NO_SQUARE && MoveGenerator.hasCapture(pos, side))) {
+            return expand(pos, level);
+        }
+        long material = material(pos);
+        boolean flip = isMirrored(material);
+        ByteBuffer table = table(flip ? mirror(material) : material);
+        if (table == MISSING) {
+            return NOT_FOUND;
+        }
+        return table.get(HEADER + index(pos, flip));
+    }
+
+    // Result worked out from the results of every legal move
+    private int expand(Position pos, int level) {
+        int[] moves = moves(level);
+        int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+        int result = win(0);  // no legal move: the side to move has won
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            int reply = value(pos, level + 1);
+            pos.unmakeMove();
+            if (reply == NOT_FOUND) {
+                return NOT_FOUND;
+            }
+            result = i == 0 ? negate(reply) : better(result, negate(reply));
+        }
+        return result;
+    }
+
+    // The calling thread's move buffer for 'level'. Expansions end within a few plies (en passant
+    // captures, then a side without pieces), so deeper levels are not expected; they get a new array.
+    private static int[] moves(int level) {
+        return level < LEVELS ? MOVES.get()[level] : new int[MoveGenerator.MAX_MOVES];
+    }
+
+    // The opponent's result one ply further on, from the side to move
+    static int negate(int reply) {
+        if (reply == DRAW) {
+            return DRAW;
+        }
+        return reply > 0 ? loss(distance(reply) + 1) : win(distance(reply) + 1);
+    }
+
+    // Of two results for the same side, the one it would choose
+    static int better(int a, int b) {
+        int rankA = a > 0 ? 1000 - a : a == DRAW ? 0 : -1000 - a;
+        int rankB = b > 0 ? 1000 - b : b == DRAW ? 0 : -1000 - b;
+        return rankA >= rankB ? a : b;
+    }
+
+    private ByteBuffer table(long material) {
+        return tables.computeIfAbsent(material, this::map);
+    }
+
+    private ByteBuffer map(long material) {
+        Path file = directory.resolve(name(material) + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return MISSING;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int pieces = pieceCount(material);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (buffer.get(i) != MAGIC[i]) {
+                    throw new IllegalStateException(file + " is not a tablebase file");
+                }
+            }
+            if (buffer.get(4) != VERSION || buffer.get(5) != pieces || channel.size() != HEADER + size(pieces)) {
+                throw new IllegalStateException(file + " has the wrong version or size");
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Makes a table built in memory (header included) available to probes, for the generator
+    void put(long material, ByteBuffer table) {
+        tables.put(material, table);
+        maxPieces = Math.max(maxPieces, pieceCount(material));
+    }
+
+    // Piece counts by piece index, four bits each
+    static long material(Position pos) {
+        long material = 0L;
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            material |= (long) Long.bitCount(pos.pieces(piece)) << (4 * piece);
+        }
+        return material;
+    }
+
+    static int pieceCount(long material) {
+        int count = 0;
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            count += (int) (material >>> (4 * piece)) & 15;
+        }
+        return count;
+    }
+
+    // The same material with the colors swapped
+    static long mirror(long material) {
+        return (material >>> 24) | ((material & 0xFFFFFFL) << 24);
+    }
+
+    // True when 'material' is stored under its mirror: white has fewer pieces than black, or as many
+    // and a smaller count vector
+    static boolean isMirrored(long material) {
+        long white = material & 0xFFFFFFL;
+        long black = material >>> 24;
+        int whiteCount = pieceCount(white);
+        int blackCount = pieceCount(black);
+        return whiteCount != blackCount ? whiteCount < blackCount : white < black;
+    }
+
+    static String name(long material) {
+        StringBuilder name = new StringBuilder();
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            if (piece == 6) {
+                name.append('v');
+            }
+            int count = (int) (material >>> (4 * piece)) & 15;
+            for (int i = 0; i < count; i++) {
+                name.append(LETTERS.charAt(piece % 6));
+            }
+        }
+        return name.toString();
+    }
+
+    static int size(int pieces) {
+        return 2 << (6 * pieces);
+    }
+
+    // Index of 'pos' in its table; 'flip' reads the position with the colors swapped and the board
+    // mirrored top to bottom, which Long.reverseBytes does to a bitboard
+    static int index(Position pos, boolean flip) {
+        int index = 0;
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            long squares = flip ? Long.reverseBytes(pos.pieces((piece + 6) % Position.PIECE_KINDS)) : pos.pieces(piece);
+            for (; squares != 0; squares &= squares - 1) {
+                index = (index << 6) | Long.numberOfTrailingZeros(squares);
+            }
+        }
+        Color side = flip ? pos.getSideToMove().opposite() : pos.getSideToMove();
+        return (index << 1) | side.ordinal();
+    }
+}
@@ -0,0 +1,292 @@
+package com.giveawaychess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Retrograde generator for the tables Tablebase probes. Tables are built smallest first, and within one
+// piece count those with fewer pawns first, so every capture and promotion leads into a table that is
+// already done; existing files are kept, so an interrupted run picks up where it stopped.
+//
+// One table is solved backwards from its end positions. A first sweep generates the moves of every
+// position once: moves that stay in the table are recorded the other way round (child to parent),
+// moves that leave it are looked up at once. Positions are then decided in order of distance from a
+// bucket queue: a position with no legal move is won in 0; a parent of a position lost in d is won in
+// d + 1; a position whose moves all reach won positions is lost one ply after the slowest of them.
+// Whatever is never decided is a draw.
+//
+// Usage: java -Xmx2g -cp target/classes com.giveawaychess.TablebaseGenerator directory [maxPieces]
+// Three pieces (the default) take seconds per table; four take a few GB of heap per table.
+public final class TablebaseGenerator {
+    private static final int MAX_DISTANCE = Byte.MAX_VALUE;
+
+    private final Path directory;
+    private final Tablebase tablebase;
+
+    private TablebaseGenerator(Path directory) {
+        this.directory = directory;
+        this.tablebase = Tablebase.open(directory);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: TablebaseGenerator directory [maxPieces]");
+            return;
+        }
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        if (maxPieces < 2 || maxPieces > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("maxPieces must be 2 to " + Tablebase.MAX_PIECES);
+        }
+        generate(Paths.get(args[0]), materials(maxPieces), System.out);
+    }
+
+    // Builds the tables of 'materials' that 'directory' does not hold yet, in the order given, and opens
+    // the directory. Every table a capture or promotion leads to must come earlier in the list or be there
+    // already. Each table built gets a summary line on 'log', unless it is null.
+    static Tablebase generate(Path directory, List<Long> materials, PrintStream log) throws IOException {
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        for (long material : materials) {
+            String name = Tablebase.name(material);
+            if (Files.exists(directory.resolve(name + Tablebase.EXTENSION))) {
+                continue;
+            }
+            long start = System.nanoTime();
+            byte[] table = generator.generate(material);
+            generator.write(name, table);
+            generator.tablebase.put(material, ByteBuffer.wrap(table));
+            if (log != null) {
+                log.println(name + ": " + summary(table) + ", " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        }
+        return Tablebase.open(directory);
+    }
+
+    // Every signature with 2 to 'maxPieces' pieces and at least one per side, in the order they must be
+    // built; only the orientation Tablebase stores
+    static List<Long> materials(int maxPieces) {
+        List<Long> materials = new ArrayList<>();
+        addMaterials(materials, 0L, 0, 0, maxPieces);
+        materials.sort(Comparator.comparingInt((Long m) -> Tablebase.pieceCount(m)).thenComparingInt(TablebaseGenerator::pawns));
+        return materials;
+    }
+
+    private static void addMaterials(List<Long> materials, long material, int piece, int pieces, int maxPieces) {
+        if (piece == Position.PIECE_KINDS) {
+            if (pieces >= 2 && (material & 0xFFFFFFL) != 0 && (material >>> 24) != 0 && !Tablebase.isMirrored(material)) {
+                materials.add(material);
+            }
+            return;
+        }
+        for (int count = 0; pieces + count <= maxPieces; count++) {
+            addMaterials(materials, material | ((long) count << (4 * piece)), piece + 1, pieces + count, maxPieces);
+        }
+    }
+
+    private static int pawns(long material) {
+        return (int) ((material >>> 20) & 15) + (int) ((material >>> 44) & 15);
+    }
+
+    // The table for 'material', header included
+    private byte[] generate(long material) {
+        int pieces = Tablebase.pieceCount(material);
+        int size = Tablebase.size(pieces);
+        byte[] table = new byte[Tablebase.HEADER + size];
+        table[0] = 'G';
+        table[1] = 'C';
+        table[2] = 'T';
+        table[3] = 'B';
+        table[4] = Tablebase.VERSION;
+        table[5] = (byte) pieces;
+
+        int[] pending = new int[size];    // moves into this table not yet known to reach a won position
+        byte[] slowest = new byte[size];  // longest win among the replies known so far
+        boolean[] valid = new boolean[size];
+        boolean[] notLost = new boolean[size];  // some move reaches a draw or a lost position
+        int[] parentStart = new int[size + 1];
+        Buckets buckets = new Buckets();
+        Position pos = new Position();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int index = 0; index < size; index++) {
+            if (!setUp(pos, material, pieces, index)) {
+                continue;
+            }
+            valid[index] = true;
+            int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+            if (count == 0) {
+                buckets.add(0, index, Tablebase.win(0));
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                pos.makeMove(moves[i]);
+                int child = childIndex(pos, material);
+                if (child >= 0) {
+                    parentStart[child + 1]++;
+                    pending[index]++;
+                } else {
+                    int reply = tablebase.value(pos);
+                    if (reply == Tablebase.NOT_FOUND) {
+                        throw new IllegalStateException("no table for " + pos.toFen());
+                    }
+                    if (Tablebase.isWin(reply)) {
+                        slowest[index] = (byte) Math.max(slowest[index], Tablebase.distance(reply));
+                    } else {
+                        notLost[index] = true;
+                        if (reply != Tablebase.DRAW) {
+                            int plies = Math.min(Tablebase.distance(reply) + 1, MAX_DISTANCE);
+                            buckets.add(plies, index, Tablebase.win(plies));
+                        }
+                    }
+                }
+                pos.unmakeMove();
+            }
+            if (pending[index] == 0 && !notLost[index]) {
+                int plies = Math.min(slowest[index] + 1, MAX_DISTANCE);
+                buckets.add(plies, index, Tablebase.loss(plies));
+            }
+        }
+
+        // Second sweep: the parents of each position, grouped by position
+        for (int index = 0; index < size; index++) {
+            parentStart[index + 1] += parentStart[index];
+        }
+        int[] parents = new int[parentStart[size]];
+        int[] fill = Arrays.copyOf(parentStart, size);
+        for (int index = 0; index < size; index++) {
+            if (!valid[index] || !setUp(pos, material, pieces, index)) {
+                continue;
+            }
+            int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+            for (int i = 0; i < count; i++) {
+                pos.makeMove(moves[i]);
+                int child = childIndex(pos, material);
+                if (child >= 0) {
+                    parents[fill[child]++] = index;
+                }
+                pos.unmakeMove();
+            }
+        }
+
+        for (int plies = 0; plies <= MAX_DISTANCE; plies++) {
+            for (int i = 0; i < buckets.size(plies); i++) {
+                int index = buckets.index(plies, i);
+                if (table[Tablebase.HEADER + index] != 0) {
+                    continue;  // decided sooner
+                }
+                int value = buckets.value(plies, i);
+                table[Tablebase.HEADER + index] = (byte) value;
+                for (int p = parentStart[index]; p < parentStart[index + 1]; p++) {
+                    int parent = parents[p];
+                    if (table[Tablebase.HEADER + parent] != 0) {
+                        continue;
+                    }
+                    if (Tablebase.isLoss(value)) {
+                        int parentPlies = Math.min(plies + 1, MAX_DISTANCE);
+                        buckets.add(parentPlies, parent, Tablebase.win(parentPlies));
+                    } else {
+                        slowest[parent] = (byte) Math.max(slowest[parent], plies);
+                        if (--pending[parent] == 0 && !notLost[parent]) {
+                            int parentPlies = Math.min(slowest[parent] + 1, MAX_DISTANCE);
+                            buckets.add(parentPlies, parent, Tablebase.loss(parentPlies));
+                        }
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    // Places the pieces of 'material' for 'index'; false when the index is no position of its own
+    // (two pieces on a square, a pawn on the first or last row, equal pieces out of order)
+    private static boolean setUp(Position pos, long material, int pieces, int index) {
+        pos.clear();
+        int squares = index >>> 1;
+        int shift = 6 * (pieces - 1);
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            int count = (int) (material >>> (4 * piece)) & 15;
+            for (int i = 0; i < count; i++, shift -= 6) {
+                int square = (squares >>> shift) & 63;
+                int row = Bitboards.row(square);
+                if (pos.pieceAt(square) != Position.EMPTY
+                    || (Position.typeOf(piece) == Piece.PieceType.PAWN && (row == 0 || row == 7))) {
+                    return false;
+                }
+                pos.add(square, piece);
+            }
+        }
+        pos.setSideToMove((index & 1) == 0 ? Piece.Color.WHITE : Piece.Color.BLACK);
+        return Tablebase.index(pos, false) == index;
+    }
+
+    // Index of the position after a move when it stays in the table being built, otherwise -1
+    private static int childIndex(Position pos, long material) {
+        if (Tablebase.material(pos) != material) {
+            return -1;
+        }
+        if (pos.getEnPassantSquare() != Position.NO_SQUARE && MoveGenerator.hasCapture(pos, pos.getSideToMove())) {
+            return -1;  // every move captures, see Tablebase.value
+        }
+        return Tablebase.index(pos, false);
+    }
+
+    private void write(String name, byte[] table) throws IOException {
+        Path file = directory.resolve(name + Tablebase.EXTENSION);
+        Path temp = directory.resolve(name + Tablebase.EXTENSION + ".tmp");
+        Files.write(temp, table);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String summary(byte[] table) {
+        long wins = 0;
+        long losses = 0;
+        int longest = 0;
+        for (int i = Tablebase.HEADER; i < table.length; i++) {
+            if (table[i] > 0) {
+                wins++;
+            } else if (table[i] < 0) {
+                losses++;
+            }
+            if (table[i] != 0) {
+                longest = Math.max(longest, Tablebase.distance(table[i]));
+            }
+        }
+        return wins + " wins, " + losses + " losses, longest " + longest + " plies";
+    }
+
+    // Positions to decide, by distance; each entry is a table index and its value
+    private static final class Buckets {
+        private final int[][] entries = new int[MAX_DISTANCE + 1][16];
+        private final int[] sizes = new int[MAX_DISTANCE + 1];
+
+        void add(int plies, int index, int value) {
+            int[] bucket = entries[plies];
+            if (sizes[plies] * 2 == bucket.length) {
+                bucket = entries[plies] = Arrays.copyOf(bucket, bucket.length * 2);
+            }
+            bucket[sizes[plies] * 2] = index;
+            bucket[sizes[plies] * 2 + 1] = value;
+            sizes[plies]++;
+        }
+
+        int size(int plies) {
+            return sizes[plies];
+        }
+
+        int index(int plies, int i) {
+            return entries[plies][i * 2];
+        }
+
+        int value(int plies, int i) {
+            return entries[plies][i * 2 + 1];
+        }
+    }
+}
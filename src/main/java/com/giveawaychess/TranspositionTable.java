@@ -0,0 +1,105 @@
+package com.giveawaychess;
+
+import java.util.Arrays;
+
+// Fixed-size hash table of search results, shared without locks by any number of search threads.
+//
+// Each slot is two longs: the packed entry and the position key XORed with that entry. A reader only
+// accepts a slot when the two halves XOR back to its key, so a slot torn by two writers racing is seen
+// as a miss instead of a wrong result. Slots come in pairs: the first keeps the deeper result (or
+// anything from an older search), the second always takes the newest one.
+//
+// Entry layout: bits 0-17 best move, 18-19 bound, 20-26 depth, 27-31 search generation, 32-63 score.
+public final class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // score is at least the stored value (beta cutoff)
+    public static final int UPPER = 3; // score is at most the stored value (no move reached alpha)
+
+    private static final int MOVE_MASK = (1 << 18) - 1;
+    private static final int MAX_DEPTH = 127;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask; // bucket index mask; a bucket is two slots
+    private int generation;
+
+    public TranspositionTable(int megabytes) {
+        long slots = Math.max(2L, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        keys = new long[size];
+        entries = new long[size];
+        mask = size / 2 - 1;
+    }
+
+    // Call once per root search so entries from earlier moves give way to new ones
+    public void newSearch() {
+        generation = (generation + 1) & 31;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    // Returns the packed entry for 'key', or 0 when there is none
+    public long probe(long key) {
+        int slot = ((int) key & mask) << 1;
+        long entry = entries[slot];
+        if ((keys[slot] ^ entry) == key && entry != 0) {
+            return entry;
+        }
+        entry = entries[slot + 1];
+        if ((keys[slot + 1] ^ entry) == key && entry != 0) {
+            return entry;
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int slot = ((int) key & mask) << 1;
+        long old = entries[slot];
+        boolean sameKey = (keys[slot] ^ old) == key;
+        // Depth-preferred slot: take it when it holds this position, something shallower, or a stale entry
+        if (sameKey || old == 0 || depth >= depth(old) || generation(old) != generation) {
+            if (sameKey && move == MoveGenerator.NO_MOVE) {
+                move = move(old); // keep the known best move when this search found none
+            }
+            write(slot, key, pack(move, score, depth, bound));
+        } else {
+            write(slot + 1, key, pack(move, score, depth, bound));
+        }
+    }
+
+    private void write(int slot, long key, long entry) {
+        entries[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    private long pack(int move, int score, int depth, int bound) {
+        return (move & MOVE_MASK)
+            | ((long) bound << 18)
+            | ((long) Math.min(depth, MAX_DEPTH) << 20)
+            | ((long) generation << 27)
+            | ((long) score << 32);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 18) & 3;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 20) & MAX_DEPTH;
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 27) & 31;
+    }
+}
@@ -0,0 +1,36 @@
+package com.giveawaychess;
+
+// Random keys for Zobrist hashing. A position's key is the XOR of one key per (piece, square), the
+// side key when black is to move, and a file key when an en passant capture is actually available.
+// The generator is seeded so keys, and anything stored by key, are identical between runs.
+public final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[Position.PIECE_KINDS][64];
+    static final long BLACK_TO_MOVE;
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = next(seed);
+                PIECE_SQUARE[piece][sq] = seed * 2685821657736338717L;
+            }
+        }
+        seed = next(seed);
+        BLACK_TO_MOVE = seed * 2685821657736338717L;
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = seed * 2685821657736338717L;
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    private static long next(long x) {
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        return x;
+    }
+}
@@ -0,0 +1,60 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Each AttackMap query against the same answer worked out move by move, for both sides of every
+// position of a few hundred seeded random games
+class AttackMapTest {
+    private static final int GAMES = 300;
+
+    @Test
+    void queriesMatchMoveGeneration() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (long seed = 1; seed <= GAMES; seed++) {
+            Random random = new Random(seed);
+            Position pos = Position.fromFen(Perft.START_FEN);
+            for (int ply = random.nextInt(80); ply > 0; ply--) {
+                int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+                if (count == 0) break;
+                pos.makeMove(moves[random.nextInt(count)]);
+                for (Color color : Color.values()) {
+                    check(pos, color, moves);
+                }
+            }
+        }
+    }
+
+    private static void check(Position pos, Color color, int[] moves) {
+        String fen = pos.toFen() + " " + color;
+
+        int captures = 0;
+        for (long own = pos.occupancy(color); own != 0; own &= own - 1) {
+            captures += Long.bitCount(MoveGenerator.captureTargets(pos, Bitboards.first(own)));
+        }
+        assertEquals(captures, AttackMap.captureCount(pos, color), fen);
+        int queenCaptures = 0;
+        for (long queens = pos.pieces(color, PieceType.QUEEN); queens != 0; queens &= queens - 1) {
+            queenCaptures += Long.bitCount(MoveGenerator.captureTargets(pos, Bitboards.first(queens)));
+        }
+        assertEquals(queenCaptures, AttackMap.queenCaptureCount(pos, color), fen);
+
+        // Under the forced capture rule, the opponent's legal moves reach exactly the attacked pieces
+        long reached = 0L;
+        int count = MoveGenerator.generateLegal(pos, color.opposite(), moves);
+        for (int i = 0; i < count; i++) {
+            reached |= Bitboards.bit(MoveGenerator.to(moves[i]));
+        }
+        assertEquals(reached & pos.occupancy(color), AttackMap.hanging(pos, color), fen);
+        for (long own = pos.occupancy(color); own != 0; own &= own - 1) {
+            int square = Bitboards.first(own);
+            assertEquals((reached & Bitboards.bit(square)) != 0, AttackMap.attackers(pos, color.opposite(), square) != 0, fen);
+        }
+    }
+}
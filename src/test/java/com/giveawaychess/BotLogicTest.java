@@ -0,0 +1,65 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BotLogicTest {
+    private static final long HELPER_EXIT_MILLIS = 5000;
+
+    @Test
+    void closeStopsHelperThreads() throws InterruptedException {
+        BotLogic bot = new BotLogic(new ChessBoard(), null, BotLogic.BotType.SWEATY);
+        bot.setThreads(3);
+        assertNotNull(bot.getBestMove(new ChessBoard(), Piece.Color.WHITE, 3));
+
+        bot.close();
+        long deadline = System.currentTimeMillis() + HELPER_EXIT_MILLIS;
+        while (helpersAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(helpersAlive(), "helper threads still running after close");
+    }
+
+    @Test
+    void closedBotCanSearchAgain() {
+        BotLogic bot = new BotLogic(new ChessBoard(), null, BotLogic.BotType.SWEATY);
+        bot.setThreads(2);
+        bot.close();
+        assertNotNull(bot.getBestMove(new ChessBoard(), Piece.Color.WHITE, 3));
+        bot.close();
+    }
+
+    // White's knight can take on c3 and d2, its queen on d2 as well
+    @Test
+    void noQueenMovesLeavesQueenCapturesOutOfScore() {
+        Position pos = Position.fromFen("8/8/8/8/8/2p5/3p4/1N1Q4 w - - 0 1");
+        assertEquals(evaluate("None", pos) + 1, evaluate("No Queen Moves", pos));
+    }
+
+    // Only the queen can capture, so its captures are the moves the wild card leaves
+    @Test
+    void noQueenMovesCountsQueenCapturesWhenNothingElseCaptures() {
+        Position pos = Position.fromFen("8/8/8/8/8/8/3p4/3Q3N w - - 0 1");
+        assertEquals(evaluate("None", pos), evaluate("No Queen Moves", pos));
+    }
+
+    private static int evaluate(String wildCard, Position pos) {
+        BotProfile profile = new BotProfile();
+        profile.botName = "test";
+        profile.capturePrioritization = List.of();
+        profile.pawnBehavior = List.of();
+        profile.forcedMoveStrategy = List.of();
+        profile.wildCard = wildCard;
+        return new BotLogic(new ChessBoard(), null, profile).evaluateBoard(pos, Piece.Color.WHITE);
+    }
+
+    private static boolean helpersAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(thread -> thread.isAlive() && thread.getName().equals("bot-search-helper"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompiledProfileTest {
+    private static final String HIGH_CAPTURES = "Prefer capturing higher-valued pieces";
+    private static final String MOBILITY = "Prefer capturing to maximize mobility";
+
+    private static CompiledProfile profile(String... capturePrioritization) {
+        BotProfile profile = new BotProfile();
+        profile.botName = "test";
+        profile.capturePrioritization = List.of(capturePrioritization);
+        profile.pawnBehavior = List.of();
+        profile.forcedMoveStrategy = List.of();
+        profile.wildCard = "None";
+        return profile.compile();
+    }
+
+    // White's queen takes on d2, going from its one forced capture to a board full of moves
+    private static Search afterCapture(int capture) {
+        Position root = Position.fromFen("8/8/8/8/8/8/3p4/3Q4 w - - 0 1");
+        Search search = new Search(root, Piece.Color.WHITE, (pos, color) -> 0, true, false, null, 0);
+        search.position().makeMove(capture);
+        return search;
+    }
+
+    @Test
+    void captureRuleScoresCapturedPiece() {
+        int capture = MoveGenerator.encode(Bitboards.square(0, 3), Bitboards.square(1, 3));
+        Search search = afterCapture(capture);
+        assertEquals(-3, profile(HIGH_CAPTURES).scoreMove(search, Piece.Color.WHITE, capture, 0));
+    }
+
+    // The original bot compared the move count with itself, so this rule never changed a score
+    @Test
+    void mobilityRuleAddsNothing() {
+        int capture = MoveGenerator.encode(Bitboards.square(0, 3), Bitboards.square(1, 3));
+        Search search = afterCapture(capture);
+        assertNotEquals(1, search.countMoves(Piece.Color.WHITE), "the capture changes White's move count");
+        assertEquals(profile(HIGH_CAPTURES).scoreMove(search, Piece.Color.WHITE, capture, 0),
+            profile(HIGH_CAPTURES, MOBILITY).scoreMove(search, Piece.Color.WHITE, capture, 0));
+        assertEquals(0, profile(MOBILITY).scoreMove(search, Piece.Color.WHITE, capture, 0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Perft-style equivalence check between MoveGenerator.generateLegal and the original array-based
+// rules in ReferenceMoveGenerator. Every node of the tree is compared move for move, starting from
+// the initial position and from a few positions reached by seeded random play, and the incremental
+// Zobrist key is checked against a full recomputation after every move. Nodes where an en passant
+// capture is available are walked but not compared, because the old rules never generated en
+// passant captures.
+class MoveGeneratorTest {
+    private static final int DEPTH = 4;
+    private static final int SAMPLE_GAMES = 8;
+
+    private final List<String> mismatches = new ArrayList<>();
+
+    @Test
+    void initialPositionMatchesReference() {
+        walk(new ChessBoard().getPosition().copy(), Color.WHITE, DEPTH, new int[DEPTH + 1][MoveGenerator.MAX_MOVES]);
+        assertEquals(List.of(), mismatches);
+    }
+
+    @Test
+    void sampleGamesMatchReference() {
+        Position start = new ChessBoard().getPosition().copy();
+        Random random = new Random(20240501L);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < SAMPLE_GAMES; game++) {
+            Position pos = start.copy();
+            Color side = Color.WHITE;
+            int plies = 10 + random.nextInt(30);
+            for (int ply = 0; ply < plies; ply++) {
+                int count = MoveGenerator.generateLegal(pos, side, moves);
+                if (count == 0) break;
+                pos.makeMove(moves[random.nextInt(count)]);
+                side = side.opposite();
+            }
+            walk(pos, side, DEPTH - 1, new int[DEPTH][MoveGenerator.MAX_MOVES]);
+        }
+        assertEquals(List.of(), mismatches);
+    }
+
+    private void walk(Position pos, Color side, int depth, int[][] buffers) {
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generateLegal(pos, side, moves);
+
+        if (!canCaptureEnPassant(pos, side)) {
+            compare(pos, side, moves, count);
+        }
+
+        if (depth == 1 || count == 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            pos.makeMove(moves[i]);
+            if (pos.hash() != pos.computeHash()) {
+                mismatches.add("incremental hash differs from computeHash after " + describe(List.of(moves[i])));
+            }
+            walk(pos, side.opposite(), depth - 1, buffers);
+            pos.unmakeMove();
+        }
+    }
+
+    // True when one of side's pawns attacks the en passant square
+    private static boolean canCaptureEnPassant(Position pos, Color side) {
+        long target = MoveGenerator.enPassantTarget(pos, side);
+        if (target == 0) {
+            return false;
+        }
+        return (Attacks.PAWN[side.opposite().ordinal()][Long.numberOfTrailingZeros(target)] & pos.pieces(side, PieceType.PAWN)) != 0;
+    }
+
+    private void compare(Position pos, Color side, int[] moves, int count) {
+        // The reference knows neither flags nor promotion choices: compare squares, one entry per promotion
+        List<Integer> actual = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PieceType promotion = MoveGenerator.promotion(moves[i]);
+            if (promotion == null || promotion == PieceType.QUEEN) {
+                actual.add(MoveGenerator.squares(moves[i]));
+            }
+        }
+        List<Integer> expected = ReferenceMoveGenerator.legalMoves(ReferenceMoveGenerator.toArray(pos), side);
+        Collections.sort(actual);
+        Collections.sort(expected);
+        if (!actual.equals(expected)) {
+            mismatches.add(side + " in " + pos.toFen() + ": expected " + describe(expected) + ", actual " + describe(actual));
+        }
+    }
+
+    private static String describe(List<Integer> moves) {
+        StringBuilder sb = new StringBuilder();
+        for (int move : moves) {
+            int from = MoveGenerator.from(move);
+            int to = MoveGenerator.to(move);
+            sb.append((char) ('a' + Bitboards.col(from))).append(Bitboards.row(from) + 1)
+              .append((char) ('a' + Bitboards.col(to))).append(Bitboards.row(to) + 1).append(' ');
+        }
+        return sb.toString().trim();
+    }
+}
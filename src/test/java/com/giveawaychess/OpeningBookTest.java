@@ -0,0 +1,48 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OpeningBookTest {
+    // a2-a3, a move none of the bot types would pick at the start on its own
+    private static final int BOOK_MOVE = MoveGenerator.encode(Bitboards.square(1, 0), Bitboards.square(2, 0));
+
+    @TempDir
+    Path directory;
+
+    // A book holding only BOOK_MOVE for the start position
+    private OpeningBook book() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER + OpeningBook.ENTRY);
+        buffer.put(OpeningBook.MAGIC).put(OpeningBook.VERSION).put(new byte[3]);
+        buffer.putLong(new ChessBoard().getPosition().hash()).putInt(BOOK_MOVE).putInt(1);
+        Path file = directory.resolve("book" + OpeningBook.EXTENSION);
+        Files.write(file, buffer.array());
+        return OpeningBook.open(file);
+    }
+
+    private static int move(BotLogic.BotType type, OpeningBook book) {
+        BotLogic bot = new BotLogic(new ChessBoard(), null, type);
+        bot.setBook(book);
+        return bot.getMove().getCode() & OpeningBook.MOVE_BITS;
+    }
+
+    @Test
+    void searchingBotPlaysFromBook() throws IOException {
+        assertEquals(BOOK_MOVE, move(BotLogic.BotType.SWEATY, book()));
+    }
+
+    @Test
+    void aggressiveBotIgnoresBook() throws IOException {
+        OpeningBook book = book();
+        assertNotEquals(BOOK_MOVE, move(BotLogic.BotType.AGGRESSIVE, book));
+        assertEquals(move(BotLogic.BotType.AGGRESSIVE, null), move(BotLogic.BotType.AGGRESSIVE, book));
+    }
+}
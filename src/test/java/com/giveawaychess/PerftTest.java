@@ -0,0 +1,39 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// The reference counts of Perft.SUITE at shallow depths, walked through Position and through ChessBoard.
+// The deeper counts are left to Perft -suite.
+class PerftTest {
+    private static final int DEPTH = 4;
+    private static final int BOARD_DEPTH = 3;
+
+    @Test
+    void positionCountsMatchSuite() {
+        for (Object[] entry : Perft.SUITE) {
+            String fen = (String) entry[0];
+            long[] expected = (long[]) entry[1];
+            Position pos = Position.fromFen(fen);
+            long hash = pos.hash();
+            for (int depth = 1; depth <= DEPTH; depth++) {
+                assertEquals(expected[depth - 1], Perft.perft(pos, depth), "perft(" + depth + ") of " + fen);
+            }
+            assertEquals(hash, pos.hash(), "position changed by perft of " + fen);
+        }
+    }
+
+    @Test
+    void boardCountsMatchSuite() {
+        for (Object[] entry : Perft.SUITE) {
+            String fen = (String) entry[0];
+            long[] expected = (long[]) entry[1];
+            ChessBoard board = new ChessBoard();
+            board.setPosition(Position.fromFen(fen));
+            for (int depth = 1; depth <= BOARD_DEPTH; depth++) {
+                assertEquals(expected[depth - 1], Perft.perft(board, depth), "board perft(" + depth + ") of " + fen);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.giveawaychess.Piece.Color;
+
+class PositionTest {
+    // Eight pawns, two rooks, two bishops, two knights and a queen at the default values
+    private static final int START_MATERIAL = 8 * 1 + 2 * 5 + 2 * 3 + 2 * 3 + 9;
+
+    @Test
+    void newPositionsWeighPiecesByDefault() {
+        assertEquals(START_MATERIAL, Position.fromFen(Perft.START_FEN).material(Color.WHITE));
+        assertEquals(START_MATERIAL, new ChessBoard().getPosition().material(Color.BLACK));
+        assertEquals(0, new ChessBoard().getPosition().placement(Color.WHITE));
+    }
+
+    @Test
+    void nullWeightsRestoreDefaults() {
+        Position pos = Position.fromFen(Perft.START_FEN);
+        int[] doubled = new int[Position.PIECE_KINDS];
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            doubled[piece] = 2 * CompiledProfile.DEFAULT.pieceWeights()[piece];
+        }
+        pos.setWeights(doubled, null);
+        assertEquals(2 * START_MATERIAL, pos.material(Color.WHITE));
+        pos.setWeights(null, null);
+        assertEquals(START_MATERIAL, pos.material(Color.WHITE));
+    }
+
+    @Test
+    void sumsFollowMovesAndUndo() {
+        Random random = new Random(11);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Position pos = Position.fromFen(Perft.START_FEN);
+        int plies = 0;
+        for (; plies < 120; plies++) {
+            int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+            if (count == 0) break;
+            pos.makeMove(moves[random.nextInt(count)]);
+            Position fresh = Position.fromFen(pos.toFen());
+            for (Color color : Color.values()) {
+                assertEquals(fresh.material(color), pos.material(color), pos.toFen());
+            }
+        }
+        for (; plies > 0; plies--) {
+            pos.unmakeMove();
+        }
+        assertEquals(START_MATERIAL, pos.material(Color.WHITE));
+        assertEquals(START_MATERIAL, pos.material(Color.BLACK));
+    }
+}
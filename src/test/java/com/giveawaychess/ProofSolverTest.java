@@ -0,0 +1,98 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.giveawaychess.Piece.Color;
+import com.giveawaychess.Piece.PieceType;
+
+// Solver verdicts and proof moves against the tablebase, on random positions of every two-piece table
+// and of two pawnless three-piece ones. Those need no tables but the two-piece ones and build in
+// seconds; all three-piece tables take minutes.
+class ProofSolverTest {
+    private static final Set<String> THREE_PIECES = Set.of("RRvK", "KRvN");
+    private static final int POSITIONS = 2000;
+    private static final long NODES = 2_000;
+
+    @TempDir
+    static Path directory;
+    private static final List<Long> materials = new ArrayList<>();
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void buildTables() throws IOException {
+        for (long material : TablebaseGenerator.materials(3)) {
+            if (Tablebase.pieceCount(material) == 2 || THREE_PIECES.contains(Tablebase.name(material))) {
+                materials.add(material);
+            }
+        }
+        tablebase = TablebaseGenerator.generate(directory, materials, null);
+    }
+
+    @Test
+    void verdictsAndMovesAgreeWithTablebase() {
+        ProofSolver solver = new ProofSolver(16);
+        Random random = new Random(20240611L);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int proved = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            Position pos = randomPosition(materials.get(random.nextInt(materials.size())), random);
+            String fen = pos.toFen();
+            int value = tablebase.probe(pos);
+            ProofSolver.Outcome outcome = solver.solve(pos, NODES);
+            if (outcome == ProofSolver.Outcome.WIN) {
+                assertTrue(Tablebase.isWin(value), "won " + fen + ", tablebase " + value);
+                int move = solver.bestMove();
+                if (move == MoveGenerator.NO_MOVE) {
+                    assertEquals(0, MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves), fen);
+                } else {
+                    pos.makeMove(move);
+                    assertTrue(Tablebase.isLoss(tablebase.probe(pos)), MoveGenerator.toString(move) + " in " + fen);
+                }
+                proved++;
+            } else if (outcome == ProofSolver.Outcome.LOSS) {
+                assertTrue(Tablebase.isLoss(value), "lost " + fen + ", tablebase " + value);
+                proved++;
+            }
+        }
+        assertTrue(proved > POSITIONS / 2, proved + " of " + POSITIONS + " proved");
+    }
+
+    // White's pawn is blocked and White has nothing else, so White has won before moving
+    @Test
+    void terminalRootIsWonWithoutMove() {
+        ProofSolver solver = new ProofSolver(1);
+        Position pos = Position.fromFen("8/8/8/p7/P7/8/8/8 w - - 0 1");
+        assertEquals(ProofSolver.Outcome.WIN, solver.solve(pos, NODES));
+        assertEquals(MoveGenerator.NO_MOVE, solver.bestMove());
+    }
+
+    // The pieces of 'material' on random squares, pawns off the first and last rows, either side to move
+    private static Position randomPosition(long material, Random random) {
+        Position pos = new Position();
+        pos.clear();
+        for (int piece = 0; piece < Position.PIECE_KINDS; piece++) {
+            for (int count = (int) (material >>> (4 * piece)) & 15; count > 0; count--) {
+                int square;
+                do {
+                    square = random.nextInt(64);
+                } while (pos.pieceAt(square) != Position.EMPTY
+                    || (Position.typeOf(piece) == PieceType.PAWN && (Bitboards.row(square) == 0 || Bitboards.row(square) == 7)));
+                pos.add(square, piece);
+            }
+        }
+        pos.setSideToMove(random.nextBoolean() ? Color.WHITE : Color.BLACK);
+        return pos;
+    }
+}
@@ -0,0 +1,65 @@
+package com.giveawaychess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The original array-based rules: Piece.generatePotentialMoves filtered through Piece.canMove and
+// the mandatory-capture scan that ChessBoard used before MoveGenerator existed. It is slow on purpose
+// and only kept as an oracle for MoveGeneratorTest. En passant is not modelled here.
+final class ReferenceMoveGenerator {
+
+    private ReferenceMoveGenerator() {
+    }
+
+    // Legal moves for 'side', encoded like MoveGenerator (from | to << 6)
+    static List<Integer> legalMoves(Piece[][] board, Piece.Color side) {
+        boolean mustCapture = hasMandatoryCapture(board, side);
+        List<Integer> moves = new ArrayList<>();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board[row][col];
+                if (piece == null || piece.getColor() != side) continue;
+
+                for (Move move : piece.generatePotentialMoves(row, col, board)) {
+                    int endRow = move.getToRow();
+                    int endCol = move.getToCol();
+                    if (!piece.canMove(row, col, endRow, endCol, board)) continue;
+                    if (mustCapture && !isCapture(board, piece, endRow, endCol)) continue;
+                    moves.add(MoveGenerator.encode(Bitboards.square(row, col), Bitboards.square(endRow, endCol)));
+                }
+            }
+        }
+        return moves;
+    }
+
+    static boolean hasMandatoryCapture(Piece[][] board, Piece.Color side) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board[row][col];
+                if (piece == null || piece.getColor() != side) continue;
+
+                for (int endRow = 0; endRow < 8; endRow++) {
+                    for (int endCol = 0; endCol < 8; endCol++) {
+                        if (isCapture(board, piece, endRow, endCol) && piece.canMove(row, col, endRow, endCol, board)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCapture(Piece[][] board, Piece piece, int endRow, int endCol) {
+        Piece target = board[endRow][endCol];
+        return target != null && target.getColor() != piece.getColor();
+    }
+
+    static Piece[][] toArray(Position pos) {
+        Piece[][] board = new Piece[8][8];
+        for (int sq = 0; sq < 64; sq++) {
+            board[Bitboards.row(sq)][Bitboards.col(sq)] = Piece.of(pos.pieceAt(sq));
+        }
+        return board;
+    }
+}
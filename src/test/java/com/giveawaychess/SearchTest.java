@@ -0,0 +1,16 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SearchTest {
+    // Pawns blocked on a4 and a5: every White king move leaves Black with no move, and so the winner
+    @Test
+    void blockedSideWinsAtTheHorizon() {
+        Position root = Position.fromFen("8/8/8/p7/P7/8/8/7K w - - 0 1");
+        Search search = new Search(root, Piece.Color.WHITE, (pos, color) -> 0, true, false, null, 0);
+        search.start(SearchLimits.depth(1));
+        assertEquals(Search.WIN - 1, search.alphaBeta(1, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, false));
+    }
+}
@@ -0,0 +1,59 @@
+package com.giveawaychess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TablebaseTest {
+    @TempDir
+    Path directory;
+
+    // Two-piece tables take well under a second to build
+    private Tablebase tablebase() throws IOException {
+        return TablebaseGenerator.generate(directory, TablebaseGenerator.materials(2), null);
+    }
+
+    @Test
+    void enPassantPositionIsExpanded() throws IOException {
+        Tablebase tablebase = tablebase();
+        // Black must take e3 en passant, which leaves White without pieces: White has won
+        Position pos = Position.fromFen("8/8/8/8/3pP3/8/8/8 b - e3 0 1");
+
+        int value = tablebase.probe(pos);
+        assertTrue(Tablebase.isLoss(value), "value " + value);
+        assertEquals(1, Tablebase.distance(value));
+        assertEquals(Bitboards.square(2, 4), MoveGenerator.to(tablebase.bestMove(pos)));
+    }
+
+    @Test
+    void probesAgreeWithTheirMoves() throws IOException {
+        Tablebase tablebase = tablebase();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int white = 0; white < 64; white++) {
+            for (int black = 0; black < 64; black++) {
+                if (white == black) {
+                    continue;
+                }
+                Position pos = new Position();
+                pos.clear();
+                pos.add(white, Position.index(Piece.Color.WHITE, Piece.PieceType.KING));
+                pos.add(black, Position.index(Piece.Color.BLACK, Piece.PieceType.ROOK));
+                int value = tablebase.probe(pos);
+                int count = MoveGenerator.generateLegal(pos, pos.getSideToMove(), moves);
+                int expected = Tablebase.win(0);
+                for (int i = 0; i < count; i++) {
+                    pos.makeMove(moves[i]);
+                    int reply = Tablebase.negate(tablebase.probe(pos));
+                    pos.unmakeMove();
+                    expected = i == 0 ? reply : Tablebase.better(expected, reply);
+                }
+                assertEquals(expected, value, pos.toFen());
+            }
+        }
+    }
+}